@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableR2dbcAuditing // Active l'audit automatique pour R2DBC (dates de création, etc.)
 @EnableAsync
+@EnableScheduling // Tâches périodiques (expiration des réservations PENDING)
 public class ApirentalApplication {
 
     public static void main(String[] args) {
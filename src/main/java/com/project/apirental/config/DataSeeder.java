@@ -246,23 +246,14 @@ public class DataSeeder implements CommandLineRunner {
                         return seedStaff(org, savedAgency, 3, postes)
                             .flatMap(managerId -> {
                                 savedAgency.setManagerId(managerId);
-                                savedAgency.setTotalPersonnel(3);
                                 return agencyRepository.save(savedAgency);
                             })
                             // Création des Véhicules (Idempotent)
                             .then(seedRealVehicles(org, savedAgency))
-                            .flatMap(vehicleCount -> {
-                                savedAgency.setTotalVehicles(vehicleCount);
-                                savedAgency.setActiveVehicles(vehicleCount);
-                                return agencyRepository.save(savedAgency);
-                            })
                             // Création des Chauffeurs (Idempotent)
-                            .then(seedDrivers(org, savedAgency, 4))
-                            .flatMap(driverCount -> {
-                                savedAgency.setTotalDrivers(driverCount);
-                                savedAgency.setActiveDrivers(driverCount);
-                                return agencyRepository.save(savedAgency);
-                            });
+                            .flatMap(vehicleCount -> seedDrivers(org, savedAgency, 4)
+                                // Compteurs écrits en une requête (ignorés par save())
+                                .flatMap(driverCount -> agencyRepository.setResourceCounters(savedAgency.getId(), 3, vehicleCount, driverCount)));
                     });
             })
             .then(updateOrganizationCounters(org.getId()));
@@ -464,13 +455,8 @@ public class DataSeeder implements CommandLineRunner {
                 Mono<Long> totalAgencies = agencyRepository.findAllByOrganizationId(orgId).count();
 
                 return Mono.zip(totalVehicles, totalDrivers, totalStaff, totalAgencies)
-                    .flatMap(tuple -> {
-                        org.setCurrentVehicles(tuple.getT1().intValue());
-                        org.setCurrentDrivers(tuple.getT2().intValue());
-                        org.setCurrentUsers(tuple.getT3().intValue());
-                        org.setCurrentAgencies(tuple.getT4().intValue());
-                        return organizationRepository.save(org);
-                    });
+                    .flatMap(tuple -> organizationRepository.setCounters(orgId,
+                        tuple.getT1().intValue(), tuple.getT2().intValue(), tuple.getT3().intValue(), tuple.getT4().intValue()));
             })
             .then();
     }
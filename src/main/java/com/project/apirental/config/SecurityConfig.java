@@ -28,16 +28,22 @@ public class SecurityConfig {
                         .pathMatchers(
                             "/api/vehicles/available",
                             "/api/vehicles/search",
+                            "/api/vehicles/search/ranked",
+                            "/api/vehicles/search/summary",
+                            "/api/vehicles/nearby",
                             "/api/vehicles/agency/*/available",
                             "/uploads/**",
                             "/api/subscriptions/plans/**",
                             "/api/vehicles/categories/all",
                             "/api/agencies/all",
                             "/api/agencies/search",
+                            "/api/agencies/nearby",
                             "/api/agencies/*/details",
                             "/api/drivers/{id}/details",
                             "/api/vehicles/{id}/details",
                             "/api/vehicles/drivers/available",
+                            "/api/schedules/calendar",
+                            "/api/pricing/quotes",
                             "/api/reviews/**",
                             "/api/rentals/**",
                             "/api/notifications/**")
@@ -2,6 +2,7 @@ package com.project.apirental.modules.agency.api;
 
 import com.project.apirental.modules.agency.dto.AgencyRequestDTO;
 import com.project.apirental.modules.agency.dto.AgencyResponseDTO;
+import com.project.apirental.modules.agency.dto.NearbyAgencyDTO;
 import com.project.apirental.modules.agency.services.AgencyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -40,6 +41,17 @@ public class AgencyController {
         return agencyService.searchAgencies(keyword, city);
     }
 
+    // Route publique : agences les plus proches d'une position
+    @Operation(summary = "Agences proches d'une position (Client)")
+    @GetMapping("/nearby")
+    public Flux<NearbyAgencyDTO> getNearbyAgencies(
+            @RequestParam Double latitude,
+            @RequestParam Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) Integer limit) {
+        return agencyService.findNearbyAgencies(latitude, longitude, radiusKm, limit);
+    }
+
     // NOUVEAU : Route publique pour voir les détails d'une agence
     @Operation(summary = "Détails d'une agence (Client)")
     @GetMapping("/{id}/details")
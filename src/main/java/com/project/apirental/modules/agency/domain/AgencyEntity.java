@@ -3,6 +3,7 @@ package com.project.apirental.modules.agency.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.relational.core.mapping.Table;
@@ -61,19 +62,27 @@ public class AgencyEntity implements Persistable<UUID> {
     private String secondaryColor;
 
     // Metrics (Updated by other services usually)
+    // Compteurs en lecture seule pour save() : modifiés uniquement par les UPDATE atomiques d'AgencyRepository,
+    // une sauvegarde de la fiche ne peut donc pas écraser un incrément concurrent
     @Builder.Default
+    @ReadOnlyProperty
     private Integer activeVehicles = 0;
     @Builder.Default
+    @ReadOnlyProperty
     private Integer totalVehicles = 0;
     @Builder.Default
+    @ReadOnlyProperty
     private Integer activeDrivers = 0;
     @Builder.Default
+    @ReadOnlyProperty
     private Integer totalDrivers = 0;
     @Builder.Default
+    @ReadOnlyProperty
     private Integer totalPersonnel = 0;
     @Builder.Default
     private Integer totalRentals = 0;
     @Builder.Default
+    @ReadOnlyProperty
     private Double monthlyRevenue = 0.0;
 
     @Transient
@@ -0,0 +1,7 @@
+package com.project.apirental.modules.agency.dto;
+
+// Agence trouvée par recherche de proximité, avec sa distance (km) au point demandé
+public record NearbyAgencyDTO(
+    AgencyResponseDTO agency,
+    double distanceKm
+) {}
@@ -1,6 +1,7 @@
 package com.project.apirental.modules.agency.repository;
 
 import com.project.apirental.modules.agency.domain.AgencyEntity;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import reactor.core.publisher.Flux;
@@ -14,9 +15,46 @@ public interface AgencyRepository extends R2dbcRepository<AgencyEntity, UUID> {
     @Query("SELECT organization_id FROM agencies WHERE id = :agencyId")
     Mono<UUID> findOrgIdByAgencyId(UUID agencyId);
 
+    // Statistiques atomiques (UPDATE unique, sans relecture de l'entité)
+    @Modifying
+    @Query("UPDATE agencies SET total_vehicles = COALESCE(total_vehicles, 0) + :delta, " +
+           "active_vehicles = COALESCE(active_vehicles, 0) + :delta WHERE id = :agencyId")
+    Mono<Integer> incrementVehicleStats(UUID agencyId, int delta);
+
+    @Modifying
+    @Query("UPDATE agencies SET total_drivers = COALESCE(total_drivers, 0) + :delta, " +
+           "active_drivers = COALESCE(active_drivers, 0) + :delta WHERE id = :agencyId")
+    Mono<Integer> incrementDriverStats(UUID agencyId, int delta);
+
+    @Modifying
+    @Query("UPDATE agencies SET total_personnel = COALESCE(total_personnel, 0) + :delta WHERE id = :agencyId")
+    Mono<Integer> incrementPersonnel(UUID agencyId, int delta);
+
+    @Modifying
+    @Query("UPDATE agencies SET monthly_revenue = COALESCE(monthly_revenue, 0) + :amount WHERE id = :agencyId")
+    Mono<Integer> addMonthlyRevenue(UUID agencyId, double amount);
+
+    // Valeurs absolues (jeu de données initial) : les compteurs sont ignorés par save()
+    @Modifying
+    @Query("UPDATE agencies SET total_personnel = :personnel, total_vehicles = :vehicles, active_vehicles = :vehicles, " +
+           "total_drivers = :drivers, active_drivers = :drivers WHERE id = :agencyId")
+    Mono<Integer> setResourceCounters(UUID agencyId, int personnel, int vehicles, int drivers);
+
     // Recherche d'agences par mot-clé (nom/adresse) et/ou ville
     @Query("SELECT * FROM agencies WHERE " +
            "(:keyword::text IS NULL OR name ILIKE '%' || :keyword || '%' OR address ILIKE '%' || :keyword || '%') " +
            "AND (:city::text IS NULL OR city ILIKE '%' || :city || '%')")
     Flux<AgencyEntity> searchAgencies(String keyword, String city);
+
+    // Présélection géographique : boîte englobante (index latitude/longitude), triée par distance
+    // équirectangulaire approchée. La distance exacte (haversine) est recalculée côté service.
+    @Query("""
+        SELECT * FROM agencies
+        WHERE latitude BETWEEN :minLat AND :maxLat
+        AND longitude BETWEEN :minLon AND :maxLon
+        ORDER BY power(latitude - :lat, 2) + power((longitude - :lon) * cos(radians(:lat)), 2)
+        LIMIT :limit
+    """)
+    Flux<AgencyEntity> findInBoundingBox(double minLat, double maxLat, double minLon, double maxLon,
+                                         double lat, double lon, int limit);
 }
@@ -3,11 +3,14 @@ package com.project.apirental.modules.agency.services;
 import com.project.apirental.modules.agency.domain.AgencyEntity;
 import com.project.apirental.modules.agency.dto.AgencyRequestDTO;
 import com.project.apirental.modules.agency.dto.AgencyResponseDTO;
+import com.project.apirental.modules.agency.dto.NearbyAgencyDTO;
 import com.project.apirental.modules.agency.mapper.AgencyMapper;
 import com.project.apirental.modules.agency.repository.AgencyRepository;
 import com.project.apirental.modules.organization.repository.OrganizationRepository;
+import com.project.apirental.modules.pricing.services.PricingQuoteService;
 import com.project.apirental.modules.subscription.repository.SubscriptionPlanRepository;
 import com.project.apirental.shared.events.AuditEvent;
+import com.project.apirental.shared.utils.GeoUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
@@ -16,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -23,11 +27,18 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class AgencyService {
 
+    // Recherche de proximité : rayon par défaut / maximal (km) et nombre de résultats
+    public static final double DEFAULT_NEARBY_RADIUS_KM = 25;
+    public static final double MAX_NEARBY_RADIUS_KM = 200;
+    public static final int DEFAULT_NEARBY_LIMIT = 20;
+    public static final int MAX_NEARBY_LIMIT = 100;
+
     private final AgencyRepository agencyRepository;
     private final OrganizationRepository organizationRepository;
     private final SubscriptionPlanRepository planRepository;
     private final AgencyMapper agencyMapper;
     private final ApplicationEventPublisher eventPublisher;
+    private final PricingQuoteService pricingQuoteService;
 
     @Transactional
     public Mono<AgencyResponseDTO> createAgency(UUID orgId, AgencyRequestDTO request) {
@@ -67,13 +78,13 @@ public class AgencyService {
                         .build();
 
                     return agencyRepository.save(Objects.requireNonNull(agency))
-                            .flatMap(savedAgency -> {
-                                org.setCurrentAgencies(org.getCurrentAgencies() + 1);
-                                return organizationRepository.save(org)
-                                        .thenReturn(savedAgency);
-                            });
+                            .flatMap(savedAgency -> organizationRepository.incrementAgencies(orgId, 1)
+                                    .thenReturn(savedAgency));
                 }))
-            .doOnSuccess(a -> eventPublisher.publishEvent(new AuditEvent("CREATE_AGENCY", "AGENCY", "Agence créée : " + a.getName())))
+            .doOnSuccess(a -> {
+                pricingQuoteService.evictOrganization(orgId);
+                eventPublisher.publishEvent(new AuditEvent("CREATE_AGENCY", "AGENCY", "Agence créée : " + a.getName()));
+            })
             .map(agencyMapper::toDto);
     }
 
@@ -113,6 +124,29 @@ public class AgencyService {
         ).map(agencyMapper::toDto);
     }
 
+    /**
+     * Agences les plus proches d'un point, dans un rayon donné (km), triées par distance.
+     */
+    public Flux<NearbyAgencyDTO> findNearbyAgencies(Double latitude, Double longitude, Double radiusKm, Integer limit) {
+        try {
+            GeoUtils.validateCoordinates(latitude, longitude);
+        } catch (RuntimeException e) {
+            return Flux.error(e);
+        }
+        double radius = radiusKm == null || radiusKm <= 0 ? DEFAULT_NEARBY_RADIUS_KM : Math.min(radiusKm, MAX_NEARBY_RADIUS_KM);
+        int max = limit == null || limit <= 0 ? DEFAULT_NEARBY_LIMIT : Math.min(limit, MAX_NEARBY_LIMIT);
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, radius);
+
+        // Marge sur le nombre de candidats : l'ordre SQL n'est qu'approché
+        return agencyRepository.findInBoundingBox(box.minLat(), box.maxLat(), box.minLon(), box.maxLon(),
+                        latitude, longitude, max * 2)
+                .map(agency -> new NearbyAgencyDTO(agencyMapper.toDto(agency),
+                        GeoUtils.haversineKm(latitude, longitude, agency.getLatitude(), agency.getLongitude())))
+                .filter(nearby -> nearby.distanceKm() <= radius)
+                .sort(Comparator.comparingDouble(NearbyAgencyDTO::distanceKm))
+                .take(max);
+    }
+
     @Transactional
     public Mono<AgencyResponseDTO> updateAgency(UUID id, AgencyRequestDTO request) {
         return agencyRepository.findById(Objects.requireNonNull(id))
@@ -140,9 +174,12 @@ public class AgencyService {
                     if(request.secondaryColor() != null) existing.setSecondaryColor(request.secondaryColor());
                     return agencyRepository.save(Objects.requireNonNull(existing));
                 })
-                .doOnSuccess(updated -> eventPublisher.publishEvent(
-                        new AuditEvent("UPDATE_AGENCY", "AGENCY", "Updated agency: " + updated.getName())
-                ))
+                .doOnSuccess(updated -> {
+                    // Paramètres de caution utilisés par le moteur de devis
+                    pricingQuoteService.evictOrganization(updated.getOrganizationId());
+                    eventPublisher.publishEvent(
+                        new AuditEvent("UPDATE_AGENCY", "AGENCY", "Updated agency: " + updated.getName()));
+                })
                 .map(agencyMapper::toDto);
     }
 
@@ -1,10 +1,13 @@
 package com.project.apirental.modules.driver.api;
 
 import com.project.apirental.modules.driver.dto.DriverResponseDTO;
+import com.project.apirental.modules.driver.services.DriverImportService;
 import com.project.apirental.modules.driver.services.DriverService;
 import com.project.apirental.modules.vehicle.dto.PricingUpdateDTO;
 import com.project.apirental.modules.vehicle.dto.ScheduleUpdateDTO;
 import com.project.apirental.modules.driver.dto.DriverDetailResponseDTO;
+import com.project.apirental.shared.dto.ImportReportDTO;
+import com.project.apirental.shared.dto.PageResponseDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -28,6 +31,7 @@ import java.util.UUID;
 public class DriverController {
 
     private final DriverService driverService;
+    private final DriverImportService driverImportService;
 
     @Operation(summary = "Créer un conducteur avec fichiers (Profil, CNI, Permis)")
     @PostMapping(value = "/org/{orgId}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -64,6 +68,13 @@ public class DriverController {
         ).map(ResponseEntity::ok);
     }
 
+    @Operation(summary = "Importer des conducteurs en masse (NDJSON : un conducteur par ligne)")
+    @PostMapping(value = "/org/{orgId}/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ORGANIZATION') or @rbac.hasPermission(#orgId, 'driver:create')")
+    public Mono<ResponseEntity<ImportReportDTO>> importDrivers(@PathVariable UUID orgId, @RequestBody Flux<String> lines) {
+        return driverImportService.importDrivers(orgId, lines).map(ResponseEntity::ok);
+    }
+
     @Operation(summary = "Lister les conducteurs d'une organisation")
     @GetMapping("/org/{orgId}")
     public Flux<DriverResponseDTO> getByOrg(@PathVariable UUID orgId) {
@@ -76,6 +87,24 @@ public class DriverController {
         return driverService.getDriversByAgency(agencyId);
     }
 
+    @Operation(summary = "Lister les conducteurs d'une organisation (Paginé par curseur)")
+    @GetMapping("/org/{orgId}/page")
+    public Mono<PageResponseDTO<DriverResponseDTO>> getPageByOrg(
+            @PathVariable UUID orgId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return driverService.getDriversPageByOrg(orgId, cursor, size);
+    }
+
+    @Operation(summary = "Lister les conducteurs d'une agence (Paginé par curseur)")
+    @GetMapping("/agency/{agencyId}/page")
+    public Mono<PageResponseDTO<DriverResponseDTO>> getPageByAgency(
+            @PathVariable UUID agencyId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return driverService.getDriversPageByAgency(agencyId, cursor, size);
+    }
+
     @Operation(summary = "Détails d'un conducteur")
     @GetMapping("/{id}")
     public Mono<ResponseEntity<DriverResponseDTO>> getById(@PathVariable UUID id) {
@@ -0,0 +1,16 @@
+package com.project.apirental.modules.driver.dto;
+
+import java.util.UUID;
+
+// Ligne d'import NDJSON d'un conducteur : les documents sont déjà téléversés (URLs de /api/media)
+public record DriverImportRowDTO(
+    UUID agencyId,
+    String firstname,
+    String lastname,
+    String tel,
+    Integer age,
+    Integer gender,
+    String profilUrl,
+    String cniUrl,
+    String drivingLicenseUrl
+) {}
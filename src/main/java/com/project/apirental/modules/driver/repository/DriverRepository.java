@@ -13,6 +13,7 @@ import java.util.UUID;
 public interface DriverRepository extends R2dbcRepository<DriverEntity, UUID> {
     Flux<DriverEntity> findAllByOrganizationId(UUID organizationId);
     Flux<DriverEntity> findAllByAgencyId(UUID agencyId);
+    Flux<DriverEntity> findAllByAgencyIdAndStatus(UUID agencyId, String status);
 
     /**
      * Trouve les chauffeurs disponibles pour une agence sur une période donnée.
@@ -33,4 +34,23 @@ public interface DriverRepository extends R2dbcRepository<DriverEntity, UUID> {
         )
     """)
     Flux<DriverEntity> findAvailableDrivers(UUID agencyId, LocalDateTime startDate, LocalDateTime endDate);
+
+    // Pagination par curseur (created_at, id) - cf. KeysetPagination
+    @Query("""
+        SELECT * FROM drivers
+        WHERE organization_id = :orgId
+        AND (:cursorDate::timestamp IS NULL OR (created_at, id) < (:cursorDate::timestamp, :cursorId::uuid))
+        ORDER BY created_at DESC, id DESC
+        LIMIT :limit
+    """)
+    Flux<DriverEntity> findPageByOrganizationId(UUID orgId, LocalDateTime cursorDate, UUID cursorId, int limit);
+
+    @Query("""
+        SELECT * FROM drivers
+        WHERE agency_id = :agencyId
+        AND (:cursorDate::timestamp IS NULL OR (created_at, id) < (:cursorDate::timestamp, :cursorId::uuid))
+        ORDER BY created_at DESC, id DESC
+        LIMIT :limit
+    """)
+    Flux<DriverEntity> findPageByAgencyId(UUID agencyId, LocalDateTime cursorDate, UUID cursorId, int limit);
 }
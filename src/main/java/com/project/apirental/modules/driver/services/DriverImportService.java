@@ -0,0 +1,168 @@
+package com.project.apirental.modules.driver.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.apirental.modules.agency.domain.AgencyEntity;
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.driver.dto.DriverImportRowDTO;
+import com.project.apirental.modules.organization.domain.OrganizationEntity;
+import com.project.apirental.modules.organization.repository.OrganizationRepository;
+import com.project.apirental.modules.organization.services.OrganizationService;
+import com.project.apirental.modules.subscription.repository.SubscriptionPlanRepository;
+import com.project.apirental.shared.dto.ImportReportDTO;
+import com.project.apirental.shared.events.AuditEvent;
+import com.project.apirental.shared.utils.BulkInsert;
+import com.project.apirental.shared.utils.ImportReportBuilder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse de conducteurs au format NDJSON (un DriverImportRowDTO par ligne).
+ * Même principe que VehicleImportService : quota lu une fois, INSERT multi-lignes par lot,
+ * compteurs organisation / agence mis à jour une fois par lot.
+ */
+@Service
+@RequiredArgsConstructor
+public class DriverImportService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final List<String> COLUMNS = List.of(
+            "id", "organization_id", "agency_id", "firstname", "lastname", "tel", "age", "gender",
+            "profil_url", "cni_url", "driving_license_url", "status", "rating", "created_at", "updated_at");
+    private static final List<Class<?>> TYPES = List.of(
+            UUID.class, UUID.class, UUID.class, String.class, String.class, String.class, Integer.class, Integer.class,
+            String.class, String.class, String.class, String.class, Double.class, LocalDateTime.class, LocalDateTime.class);
+
+    private final OrganizationRepository organizationRepository;
+    private final OrganizationService organizationService;
+    private final SubscriptionPlanRepository planRepository;
+    private final AgencyRepository agencyRepository;
+    private final DriverService driverService;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    private record ParsedRow(long line, String reference, UUID agencyId, Object[] values, String error) {}
+
+    public Mono<ImportReportDTO> importDrivers(UUID orgId, Flux<String> lines) {
+        return organizationRepository.findById(Objects.requireNonNull(orgId))
+                .switchIfEmpty(Mono.<OrganizationEntity>error(new RuntimeException("Organisation non trouvée")))
+                .flatMap(org -> Mono.zip(
+                        planRepository.findById(Objects.requireNonNull(org.getSubscriptionPlanId()))
+                                .switchIfEmpty(Mono.error(new RuntimeException("Plan d'abonnement non trouvé"))),
+                        agencyRepository.findAllByOrganizationId(orgId).map(AgencyEntity::getId).collect(Collectors.toSet())
+                ).flatMap(tuple -> {
+                    ImportReportBuilder report = new ImportReportBuilder();
+                    int[] remainingQuota = { Math.max(0, tuple.getT1().getMaxDrivers() - org.getCurrentDrivers()) };
+
+                    return lines.index()
+                            .filter(indexed -> !indexed.getT2().isBlank())
+                            .map(indexed -> parse(indexed.getT1() + 1, indexed.getT2(), orgId, tuple.getT2()))
+                            .buffer(BATCH_SIZE)
+                            .concatMap(batch -> insertBatch(orgId, batch, report, remainingQuota))
+                            .then(Mono.fromSupplier(report::build));
+                }))
+                .doOnSuccess(r -> eventPublisher.publishEvent(new AuditEvent("IMPORT_DRIVERS", "DRIVER",
+                        "Import conducteurs org " + orgId + " : " + r.imported() + " importés, " + r.failed() + " rejetés")));
+    }
+
+    private ParsedRow parse(long line, String json, UUID orgId, Set<UUID> agencyIds) {
+        DriverImportRowDTO row;
+        try {
+            row = objectMapper.readValue(json, DriverImportRowDTO.class);
+        } catch (Exception e) {
+            return new ParsedRow(line, null, null, null, "JSON invalide");
+        }
+        String reference = row.firstname() + " " + row.lastname();
+        if (isBlank(row.firstname()) || isBlank(row.lastname()) || isBlank(row.tel())
+                || row.age() == null || row.gender() == null) {
+            return new ParsedRow(line, reference, null, null, "Nom, prénom, téléphone, âge et genre sont obligatoires");
+        }
+        if (isBlank(row.profilUrl()) || isBlank(row.cniUrl()) || isBlank(row.drivingLicenseUrl())) {
+            return new ParsedRow(line, reference, null, null, "Photo de profil, CNI et permis sont obligatoires");
+        }
+        // Longueurs des colonnes VARCHAR : une valeur trop longue rejette la ligne, pas tout le lot
+        if (tooLong(row.firstname(), 100) || tooLong(row.lastname(), 100) || tooLong(row.tel(), 50)
+                || tooLong(row.profilUrl(), 500) || tooLong(row.cniUrl(), 500) || tooLong(row.drivingLicenseUrl(), 500)) {
+            return new ParsedRow(line, reference, null, null,
+                    "Valeur trop longue (nom, prénom : 100 caractères ; téléphone : 50 ; URLs : 500)");
+        }
+        if (row.agencyId() == null || !agencyIds.contains(row.agencyId())) {
+            return new ParsedRow(line, reference, null, null, "Agence inconnue pour cette organisation");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Object[] values = {
+                UUID.randomUUID(), orgId, row.agencyId(), row.firstname(), row.lastname(), row.tel(), row.age(), row.gender(),
+                row.profilUrl(), row.cniUrl(), row.drivingLicenseUrl(), "ACTIVE", 0.0, now, now
+        };
+        return new ParsedRow(line, reference, row.agencyId(), values, null);
+    }
+
+    private Mono<Void> insertBatch(UUID orgId, List<ParsedRow> batch, ImportReportBuilder report, int[] remainingQuota) {
+        List<ParsedRow> accepted = new ArrayList<>();
+        for (ParsedRow row : batch) {
+            report.rowSeen();
+            if (row.error() != null) {
+                report.fail(row.line(), row.reference(), row.error());
+            } else if (remainingQuota[0] <= 0) {
+                report.fail(row.line(), row.reference(), "Quota de chauffeurs atteint pour votre plan");
+            } else {
+                remainingQuota[0]--;
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) return Mono.empty();
+
+        List<Object[]> values = accepted.stream().map(ParsedRow::values).toList();
+        Mono<Integer> batchMono = BulkInsert.insertIgnoringConflicts(databaseClient, "drivers", COLUMNS, TYPES, values)
+                .collect(Collectors.toSet())
+                .flatMap(insertedIds -> {
+                    List<ParsedRow> inserted = accepted.stream()
+                            .filter(row -> insertedIds.contains((UUID) row.values()[0]))
+                            .toList();
+                    if (inserted.isEmpty()) return Mono.just(0);
+
+                    Map<UUID, Long> perAgency = inserted.stream()
+                            .collect(Collectors.groupingBy(ParsedRow::agencyId, Collectors.counting()));
+                    return organizationService.updateDriverCounter(orgId, inserted.size())
+                            .then(Flux.fromIterable(perAgency.entrySet())
+                                    .concatMap(e -> driverService.updateAgencyDriverStats(e.getKey(), e.getValue().intValue()))
+                                    .then())
+                            .thenReturn(inserted.size());
+                });
+
+        // Le rapport n'est alimenté qu'une fois le lot validé
+        return transactionalOperator.transactional(batchMono)
+                .doOnNext(report::imported)
+                // Lot annulé : ses lignes sont rejetées, les lots précédents restent importés
+                .onErrorResume(e -> {
+                    remainingQuota[0] += accepted.size();
+                    accepted.forEach(row -> report.fail(row.line(), row.reference(), "Lot rejeté par la base de données : " + e.getMessage()));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean tooLong(String value, int maxLength) {
+        return value != null && value.length() > maxLength;
+    }
+}
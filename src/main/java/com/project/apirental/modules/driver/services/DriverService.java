@@ -16,8 +16,10 @@ import com.project.apirental.modules.schedule.services.ScheduleService;
 import com.project.apirental.modules.vehicle.dto.PricingUpdateDTO;
 import com.project.apirental.modules.vehicle.dto.ScheduleUpdateDTO;
 import com.project.apirental.modules.review.services.ReviewService;
+import com.project.apirental.shared.dto.PageResponseDTO;
 import com.project.apirental.shared.enums.ResourceType;
 import com.project.apirental.shared.events.AuditEvent;
+import com.project.apirental.shared.utils.KeysetPagination;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.codec.multipart.FilePart;
@@ -27,6 +29,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -134,6 +137,21 @@ public class DriverService {
                 .flatMap(this::enrichDriver);
     }
 
+    // Versions paginées (curseur sur created_at, id)
+    public Mono<PageResponseDTO<DriverResponseDTO>> getDriversPageByOrg(UUID orgId, String cursor, Integer size) {
+        return KeysetPagination.fetch(cursor, size,
+                (cursorDate, cursorId, limit) -> driverRepository.findPageByOrganizationId(orgId, cursorDate, cursorId, limit),
+                DriverEntity::getCreatedAt, DriverEntity::getId)
+            .flatMap(page -> enrichDrivers(page.items()).map(items -> page.withItems(items)));
+    }
+
+    public Mono<PageResponseDTO<DriverResponseDTO>> getDriversPageByAgency(UUID agencyId, String cursor, Integer size) {
+        return KeysetPagination.fetch(cursor, size,
+                (cursorDate, cursorId, limit) -> driverRepository.findPageByAgencyId(agencyId, cursorDate, cursorId, limit),
+                DriverEntity::getCreatedAt, DriverEntity::getId)
+            .flatMap(page -> enrichDrivers(page.items()).map(items -> page.withItems(items)));
+    }
+
     /**
      * Récupère les chauffeurs disponibles pour une agence sur une plage horaire
      * AVEC LEUR PRIX
@@ -142,7 +160,11 @@ public class DriverService {
         if (startDate.isAfter(endDate)) {
             return Flux.error(new IllegalArgumentException("La date de début doit être avant la date de fin"));
         }
-        return driverRepository.findAvailableDrivers(agencyId, startDate, endDate)
+        // Index mémoire des plannings si chargé : une seule lecture des chauffeurs actifs, sans sous-requête sur schedules
+        return Flux.defer(() -> scheduleService.getBusyResources(agencyId, ResourceType.DRIVER, startDate, endDate)
+                .map(busy -> driverRepository.findAllByAgencyIdAndStatus(agencyId, "ACTIVE")
+                        .filter(driver -> !busy.contains(driver.getId())))
+                .orElseGet(() -> driverRepository.findAvailableDrivers(agencyId, startDate, endDate)))
                 .flatMap(this::enrichDriver);
     }
 
@@ -166,7 +188,9 @@ public class DriverService {
 
                     return updateAgencyDriverStats(oldAgencyId, -1)
                             .then(updateAgencyDriverStats(newAgencyId, 1))
-                            .then(driverRepository.save(driver));
+                            .then(driverRepository.save(driver))
+                            .flatMap(saved -> scheduleService.onResourceAgencyChanged(ResourceType.DRIVER, saved.getId(), newAgencyId)
+                                    .thenReturn(saved));
                 })
                 .flatMap(this::enrichDriver);
     }
@@ -205,13 +229,16 @@ public class DriverService {
                         .then(updateAgencyDriverStats(driver.getAgencyId(), -1)));
     }
 
-    private Mono<Void> updateAgencyDriverStats(UUID agencyId, int increment) {
-        return agencyRepository.findById(Objects.requireNonNull(agencyId))
-                .flatMap(agency -> {
-                    agency.setTotalDrivers(agency.getTotalDrivers() + increment);
-                    agency.setActiveDrivers(agency.getActiveDrivers() + increment);
-                    return agencyRepository.save(agency);
-                }).then();
+    Mono<Void> updateAgencyDriverStats(UUID agencyId, int increment) {
+        return agencyRepository.incrementDriverStats(Objects.requireNonNull(agencyId), increment).then();
+    }
+
+    // Enrichissement d'une page entière : une seule requête de prix pour tous les chauffeurs
+    private Mono<List<DriverResponseDTO>> enrichDrivers(List<DriverEntity> drivers) {
+        return pricingService.getPricings(ResourceType.DRIVER, drivers.stream().map(DriverEntity::getId).toList())
+                .map(pricings -> drivers.stream()
+                        .map(driver -> driverMapper.toDto(driver, pricings.getOrDefault(driver.getId(), new PricingEntity())))
+                        .toList());
     }
 
     // --- METHODE PRIVEE POUR ENRICHIR LE DTO AVEC LE PRIX ---
@@ -0,0 +1,231 @@
+package com.project.apirental.modules.idempotency.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Rejeu des requêtes portant un en-tête Idempotency-Key (table idempotency_keys).
+ * - Premier passage : la clé est réservée (IN_PROGRESS, validé immédiatement) avec un jeton propre à
+ *   cette réservation. L'action et l'enregistrement de sa réponse sont faits dans une même transaction
+ *   qui verrouille d'abord la clé par son jeton : pas de réponse sans effet, ni d'effet sans réponse,
+ *   et la clé ne peut pas être reprise tant que l'exécution est en cours.
+ * - Passages suivants avec le même corps : la réponse enregistrée est renvoyée sans rien réécrire.
+ * - Même clé avec un autre corps, ou requête encore en cours : erreur.
+ * Une clé expire après idempotency.ttl-hours ; une réservation IN_PROGRESS abandonnée (crash) est
+ * reprise après idempotency.in-progress-timeout-seconds. La réservation reprise ne peut plus rien
+ * enregistrer ni libérer : ces écritures sont conditionnées au jeton.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String IN_PROGRESS_MESSAGE = "Une requête avec cette clé d'idempotence est en cours de traitement.";
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-progress-timeout-seconds:900}")
+    private long inProgressTimeoutSeconds;
+
+    @Value("${idempotency.cleanup.batch-size:1000}")
+    private int cleanupBatchSize;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean cleaning = new AtomicBoolean(false);
+
+    private record StoredKey(String requestHash, String status, String responseBody) {}
+
+    /**
+     * @param scope   espace de la clé, incluant le sujet de la requête (ex : "RENTAL_PAY:" + rentalId)
+     * @param key     valeur de l'en-tête Idempotency-Key ; sans clé, l'action est simplement exécutée
+     * @param request corps de la requête, comparé d'un essai à l'autre
+     */
+    public <T> Mono<T> execute(String scope, String key, Object request, Class<T> responseType, Supplier<Mono<T>> action) {
+        if (key == null || key.isBlank()) return Mono.defer(action);
+        if (key.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new RuntimeException("La clé d'idempotence ne doit pas dépasser " + MAX_KEY_LENGTH + " caractères."));
+        }
+
+        UUID token = UUID.randomUUID();
+        return Mono.fromCallable(() -> hash(request))
+            .flatMap(requestHash -> claim(scope, key, requestHash, token)
+                .flatMap(claimed -> claimed
+                    ? runAndStore(scope, key, token, action)
+                    : replay(scope, key, requestHash, responseType)));
+    }
+
+    // Réserve la clé, ou reprend une clé expirée / abandonnée. Vrai si la clé revient à cet appel.
+    private Mono<Boolean> claim(String scope, String key, String requestHash, UUID token) {
+        return databaseClient.sql("""
+                INSERT INTO idempotency_keys (scope, idem_key, request_hash, status, claim_token, created_at, expires_at)
+                VALUES (:scope, :key, :hash, 'IN_PROGRESS', :token, LOCALTIMESTAMP, LOCALTIMESTAMP + make_interval(hours => :ttlHours))
+                ON CONFLICT (scope, idem_key) DO UPDATE
+                SET request_hash = EXCLUDED.request_hash, status = 'IN_PROGRESS', response_body = NULL,
+                    claim_token = EXCLUDED.claim_token, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at
+                WHERE idempotency_keys.expires_at < LOCALTIMESTAMP
+                   OR (idempotency_keys.status = 'IN_PROGRESS'
+                       AND idempotency_keys.created_at < LOCALTIMESTAMP - make_interval(secs => :timeoutSeconds))
+            """)
+            .bind("scope", scope)
+            .bind("key", key)
+            .bind("hash", requestHash)
+            .bind("token", token)
+            .bind("ttlHours", (int) ttlHours)
+            .bind("timeoutSeconds", (double) inProgressTimeoutSeconds)
+            .fetch()
+            .rowsUpdated()
+            .map(count -> count > 0);
+    }
+
+    private <T> Mono<T> runAndStore(String scope, String key, UUID token, Supplier<Mono<T>> action) {
+        // Le verrou sur la clé est tenu jusqu'à la fin de la transaction : une reprise concurrente attend
+        // puis trouve la clé COMPLETED (rejeu) ou libérée
+        return lockClaim(scope, key, token)
+            .flatMap(locked -> locked ? Mono.defer(action) : Mono.<T>error(new ClaimLostException()))
+            .flatMap(response -> Mono.fromCallable(() -> objectMapper.writeValueAsString(response))
+                .flatMap(body -> databaseClient.sql("""
+                        UPDATE idempotency_keys SET status = 'COMPLETED', response_body = :body
+                        WHERE scope = :scope AND idem_key = :key AND claim_token = :token AND status = 'IN_PROGRESS'
+                    """)
+                    .bind("body", body)
+                    .bind("scope", scope)
+                    .bind("key", key)
+                    .bind("token", token)
+                    .fetch()
+                    .rowsUpdated())
+                .flatMap(updated -> updated == 0 ? Mono.<T>error(new ClaimLostException()) : Mono.just(response)))
+            .as(transactionalOperator::transactional)
+            .onErrorResume(e -> e instanceof ClaimLostException
+                // Clé reprise par un autre appel : la transaction est annulée, rien n'est enregistré
+                ? Mono.<T>error(new RuntimeException(IN_PROGRESS_MESSAGE))
+                // Échec : la clé est libérée pour qu'un nouvel essai puisse réellement s'exécuter
+                : release(scope, key, token).then(Mono.<T>error(e)));
+    }
+
+    // Vrai si la réservation appartient toujours à ce jeton ; la ligne reste verrouillée jusqu'à la fin de la transaction
+    private Mono<Boolean> lockClaim(String scope, String key, UUID token) {
+        return databaseClient.sql("""
+                SELECT 1 FROM idempotency_keys
+                WHERE scope = :scope AND idem_key = :key AND claim_token = :token AND status = 'IN_PROGRESS'
+                FOR UPDATE
+            """)
+            .bind("scope", scope)
+            .bind("key", key)
+            .bind("token", token)
+            .fetch()
+            .first()
+            .hasElement();
+    }
+
+    // Réservation perdue : la clé appartient désormais à un autre appel
+    private static final class ClaimLostException extends RuntimeException {
+        ClaimLostException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private <T> Mono<T> replay(String scope, String key, String requestHash, Class<T> responseType) {
+        return databaseClient.sql("""
+                SELECT request_hash, status, response_body FROM idempotency_keys
+                WHERE scope = :scope AND idem_key = :key
+            """)
+            .bind("scope", scope)
+            .bind("key", key)
+            .map((row, meta) -> new StoredKey(
+                row.get("request_hash", String.class),
+                row.get("status", String.class),
+                row.get("response_body", String.class)))
+            .one()
+            // Clé libérée entre-temps par un échec : l'appelant peut réessayer
+            .switchIfEmpty(Mono.error(new RuntimeException("La requête précédente avec cette clé a échoué, veuillez réessayer.")))
+            .flatMap(stored -> {
+                if (!stored.requestHash().equals(requestHash)) {
+                    return Mono.error(new RuntimeException("Cette clé d'idempotence a déjà été utilisée pour une autre requête."));
+                }
+                if (!"COMPLETED".equals(stored.status())) {
+                    return Mono.error(new RuntimeException(IN_PROGRESS_MESSAGE));
+                }
+                return Mono.fromCallable(() -> objectMapper.readValue(stored.responseBody(), responseType));
+            });
+    }
+
+    private Mono<Void> release(String scope, String key, UUID token) {
+        return databaseClient.sql("""
+                DELETE FROM idempotency_keys
+                WHERE scope = :scope AND idem_key = :key AND claim_token = :token AND status = 'IN_PROGRESS'
+            """)
+            .bind("scope", scope)
+            .bind("key", key)
+            .bind("token", token)
+            .then()
+            .onErrorResume(e -> {
+                log.warn("Libération de la clé d'idempotence {} impossible : {}", key, e.getMessage());
+                return Mono.empty();
+            });
+    }
+
+    private String hash(Object request) throws JsonProcessingException, NoSuchAlgorithmException {
+        byte[] body = objectMapper.writeValueAsBytes(request);
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    }
+
+    // =================================================================================
+    // NETTOYAGE
+    // =================================================================================
+
+    @Scheduled(initialDelayString = "${idempotency.cleanup.delay-ms:3600000}", fixedDelayString = "${idempotency.cleanup.delay-ms:3600000}")
+    public void scheduledCleanup() {
+        if (!cleaning.compareAndSet(false, true)) return;
+        purgeExpired()
+            .doFinally(signal -> cleaning.set(false))
+            .subscribe(
+                purged -> {
+                    if (purged > 0) log.info("Clés d'idempotence expirées supprimées : {}", purged);
+                },
+                e -> log.error("Échec du nettoyage des clés d'idempotence : {}", e.getMessage()));
+    }
+
+    /**
+     * Supprime les clés expirées par lots, jusqu'à épuisement.
+     */
+    public Mono<Long> purgeExpired() {
+        return purgeBatch()
+            .expand(deleted -> deleted < cleanupBatchSize ? Mono.empty() : purgeBatch())
+            .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> purgeBatch() {
+        return databaseClient.sql("""
+                DELETE FROM idempotency_keys
+                WHERE (scope, idem_key) IN (
+                    SELECT scope, idem_key FROM idempotency_keys
+                    WHERE expires_at < LOCALTIMESTAMP
+                    LIMIT :batchSize
+                )
+            """)
+            .bind("batchSize", cleanupBatchSize)
+            .fetch()
+            .rowsUpdated();
+    }
+}
@@ -5,6 +5,7 @@ import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.data.annotation.Transient;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.relational.core.mapping.Table;
@@ -47,13 +48,18 @@ public class OrganizationEntity implements Persistable<UUID> {
     private LocalDateTime verificationDate;
 
     // Metrics (Counters)
+    // En lecture seule pour save() : modifiés uniquement par les UPDATE atomiques d'OrganizationRepository
     @Builder.Default
+    @ReadOnlyProperty
     private Integer currentAgencies = 0;
     @Builder.Default
+    @ReadOnlyProperty
     private Integer currentVehicles = 0;
     @Builder.Default
+    @ReadOnlyProperty
     private Integer currentDrivers = 0;
     @Builder.Default
+    @ReadOnlyProperty
     private Integer currentUsers = 0;
 
     // Settings
@@ -7,9 +7,34 @@ import reactor.core.publisher.Mono;
 
 import java.util.UUID;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 
 public interface OrganizationRepository extends R2dbcRepository<OrganizationEntity, UUID> {
     Flux<OrganizationEntity> findAllBySubscriptionPlanId(UUID subscriptionPlanId);
     Mono<OrganizationEntity> findByOwnerId(UUID ownerId);
+
+    // Compteurs atomiques : un seul UPDATE, sans relecture de l'entité (pas d'incrément perdu en concurrence)
+    @Modifying
+    @Query("UPDATE organizations SET current_agencies = COALESCE(current_agencies, 0) + :delta WHERE id = :orgId")
+    Mono<Integer> incrementAgencies(UUID orgId, int delta);
+
+    @Modifying
+    @Query("UPDATE organizations SET current_vehicles = COALESCE(current_vehicles, 0) + :delta WHERE id = :orgId")
+    Mono<Integer> incrementVehicles(UUID orgId, int delta);
+
+    @Modifying
+    @Query("UPDATE organizations SET current_drivers = COALESCE(current_drivers, 0) + :delta WHERE id = :orgId")
+    Mono<Integer> incrementDrivers(UUID orgId, int delta);
+
+    @Modifying
+    @Query("UPDATE organizations SET current_users = COALESCE(current_users, 0) + :delta WHERE id = :orgId")
+    Mono<Integer> incrementUsers(UUID orgId, int delta);
+
+    // Valeurs absolues (jeu de données initial) : les compteurs sont ignorés par save()
+    @Modifying
+    @Query("UPDATE organizations SET current_vehicles = :vehicles, current_drivers = :drivers, " +
+           "current_users = :users, current_agencies = :agencies WHERE id = :orgId")
+    Mono<Integer> setCounters(UUID orgId, int vehicles, int drivers, int users, int agencies);
 }
@@ -116,17 +116,18 @@ public class OrganizationService {
         return str != null && !str.trim().isEmpty();
     }
 
-    @Transactional public Mono<Void> updateAgencyCounter(UUID orgId, int increment) {
-        return organizationRepository.findById(orgId).flatMap(org -> { org.setCurrentAgencies(org.getCurrentAgencies() + increment); return organizationRepository.save(org); }).then();
+    // Compteurs : incrément atomique en base (UPDATE ... SET x = x + :delta)
+    public Mono<Void> updateAgencyCounter(UUID orgId, int increment) {
+        return organizationRepository.incrementAgencies(orgId, increment).then();
     }
-    @Transactional public Mono<Void> updateStaffCounter(UUID orgId, int increment) {
-        return organizationRepository.findById(orgId).flatMap(org -> { org.setCurrentUsers(org.getCurrentUsers() + increment); return organizationRepository.save(org); }).then();
+    public Mono<Void> updateStaffCounter(UUID orgId, int increment) {
+        return organizationRepository.incrementUsers(orgId, increment).then();
     }
-    @Transactional public Mono<Void> updateVehicleCounter(UUID orgId, int increment) {
-        return organizationRepository.findById(orgId).flatMap(org -> { org.setCurrentVehicles(org.getCurrentVehicles() + increment); return organizationRepository.save(org); }).then();
+    public Mono<Void> updateVehicleCounter(UUID orgId, int increment) {
+        return organizationRepository.incrementVehicles(orgId, increment).then();
     }
-    @Transactional public Mono<Void> updateDriverCounter(UUID orgId, int increment) {
-        return organizationRepository.findById(orgId).flatMap(org -> { org.setCurrentDrivers(org.getCurrentDrivers() + increment); return organizationRepository.save(org); }).then();
+    public Mono<Void> updateDriverCounter(UUID orgId, int increment) {
+        return organizationRepository.incrementDrivers(orgId, increment).then();
     }
 
     public Mono<Boolean> validateQuota(UUID orgId, String resourceType) {
@@ -0,0 +1,34 @@
+package com.project.apirental.modules.outbox.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("outbox_events")
+public class OutboxEventEntity implements Persistable<UUID> {
+    @Id
+    private UUID id;
+    private OutboxEventType eventType;
+    private UUID aggregateId;
+    private String payload; // JSON
+
+    private String status; // PENDING, FAILED
+    private Integer attempts;
+    private LocalDateTime availableAt;
+    private String lastError;
+
+    private LocalDateTime createdAt;
+
+    @Transient @Builder.Default @JsonIgnore private boolean isNewRecord = false;
+    @Override public boolean isNew() { return isNewRecord || id == null; }
+}
@@ -0,0 +1,8 @@
+package com.project.apirental.modules.outbox.domain;
+
+/**
+ * Types d'événements de l'outbox. Chaque type a exactement un OutboxHandler.
+ */
+public enum OutboxEventType {
+    PAYMENT_RECEIVED
+}
@@ -0,0 +1,50 @@
+package com.project.apirental.modules.outbox.repository;
+
+import com.project.apirental.modules.outbox.domain.OutboxEventEntity;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+public interface OutboxEventRepository extends R2dbcRepository<OutboxEventEntity, UUID> {
+
+    /**
+     * Réserve un lot d'événements à traiter : les lignes verrouillées par une autre instance sont ignorées,
+     * et available_at est repoussé de la durée du bail pour qu'un événement non acquitté (crash) soit repris plus tard.
+     */
+    @Query("""
+        UPDATE outbox_events o
+        SET attempts = o.attempts + 1,
+            available_at = LOCALTIMESTAMP + make_interval(secs => :leaseSeconds)
+        FROM (
+            SELECT id FROM outbox_events
+            WHERE status = 'PENDING' AND available_at <= LOCALTIMESTAMP
+            ORDER BY available_at
+            LIMIT :batchSize
+            FOR UPDATE SKIP LOCKED
+        ) c
+        WHERE o.id = c.id
+        RETURNING o.*
+    """)
+    Flux<OutboxEventEntity> claimBatch(int batchSize, double leaseSeconds);
+
+    /**
+     * Acquitte un événement réservé : aucune ligne supprimée si le bail a expiré et que l'événement
+     * a été réservé de nouveau (attempts a changé) ou déjà acquitté.
+     */
+    @Modifying
+    @Query("DELETE FROM outbox_events WHERE id = :id AND attempts = :attempts")
+    Mono<Integer> deleteClaimed(UUID id, int attempts);
+
+    @Modifying
+    @Query("""
+        UPDATE outbox_events
+        SET status = :status, last_error = :error,
+            available_at = LOCALTIMESTAMP + make_interval(secs => :retryDelaySeconds)
+        WHERE id = :id AND attempts = :attempts
+    """)
+    Mono<Integer> markFailed(UUID id, int attempts, String status, String error, double retryDelaySeconds);
+}
@@ -0,0 +1,148 @@
+package com.project.apirental.modules.outbox.services;
+
+import com.project.apirental.modules.outbox.domain.OutboxEventEntity;
+import com.project.apirental.modules.outbox.domain.OutboxEventType;
+import com.project.apirental.modules.outbox.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Vide la table outbox_events par lots.
+ * - Un lot est réservé en une requête (FOR UPDATE SKIP LOCKED + bail) : plusieurs instances se partagent la file.
+ * - Chaque événement est traité dans sa propre transaction, avec sa suppression : un effet de bord n'est
+ *   jamais appliqué deux fois pour un événement acquitté, et un échec n'annule que cet événement.
+ * - La suppression est faite en premier et conditionnée au nombre de tentatives lu à la réservation :
+ *   si le bail a expiré et qu'une autre instance a repris l'événement, la transaction est abandonnée
+ *   sans appliquer les effets de bord.
+ * - En cas d'échec, nouvel essai avec attente exponentielle ; au-delà de maxAttempts l'événement passe
+ *   en FAILED et reste en table pour analyse.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_FAILED = "FAILED";
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final long MAX_RETRY_DELAY_SECONDS = 3600;
+
+    @Value("${outbox.dispatcher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.dispatcher.max-batches:50}")
+    private int maxBatches;
+
+    @Value("${outbox.dispatcher.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${outbox.dispatcher.max-attempts:10}")
+    private int maxAttempts;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final Map<OutboxEventType, OutboxHandler> handlers = new EnumMap<>(OutboxEventType.class);
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            TransactionalOperator transactionalOperator,
+                            List<OutboxHandler> handlerList) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionalOperator = transactionalOperator;
+        handlerList.forEach(h -> handlers.put(h.type(), h));
+    }
+
+    @Scheduled(initialDelayString = "${outbox.dispatcher.delay-ms:1000}", fixedDelayString = "${outbox.dispatcher.delay-ms:1000}")
+    public void scheduledDispatch() {
+        // Un seul passage à la fois par instance ; un appel pendant un passage sera couvert par le suivant
+        if (!running.compareAndSet(false, true)) return;
+        dispatch()
+            .doFinally(signal -> running.set(false))
+            .subscribe(
+                count -> {
+                    if (count > 0) log.debug("Outbox : {} événements traités", count);
+                },
+                e -> log.error("Échec du passage de l'outbox : {}", e.getMessage()));
+    }
+
+    /**
+     * Traite des lots successifs jusqu'à épuisement (lot incomplet) ou maxBatches.
+     * @return nombre d'événements traités avec succès
+     */
+    public Mono<Long> dispatch() {
+        return dispatchBatch()
+            .expand(result -> result.claimed() < batchSize ? Mono.empty() : dispatchBatch())
+            .take(maxBatches)
+            .reduce(0L, (total, result) -> total + result.succeeded());
+    }
+
+    private record BatchResult(int claimed, long succeeded) {}
+
+    private Mono<BatchResult> dispatchBatch() {
+        return outboxEventRepository.claimBatch(batchSize, (double) leaseSeconds)
+            .collectList()
+            .flatMap(events -> Flux.fromIterable(events)
+                .concatMap(this::dispatchOne)
+                .filter(Boolean::booleanValue)
+                .count()
+                .map(succeeded -> new BatchResult(events.size(), succeeded)));
+    }
+
+    private Mono<Boolean> dispatchOne(OutboxEventEntity event) {
+        OutboxHandler handler = handlers.get(event.getEventType());
+        if (handler == null) {
+            return fail(event, new IllegalStateException("Aucun traitement pour le type " + event.getEventType()));
+        }
+        // La ligne supprimée reste verrouillée jusqu'au commit : aucune autre instance ne peut la réserver
+        return outboxEventRepository.deleteClaimed(event.getId(), attempts(event))
+            .flatMap(deleted -> deleted == 0
+                ? Mono.<Void>error(new LeaseLostException())
+                : handler.handle(event))
+            .as(transactionalOperator::transactional)
+            .thenReturn(true)
+            .onErrorResume(LeaseLostException.class, e -> {
+                log.warn("Outbox : bail expiré pour l'événement {} ({}), repris par une autre instance", event.getId(), event.getEventType());
+                return Mono.just(false);
+            })
+            .onErrorResume(e -> fail(event, e));
+    }
+
+    // Bail perdu : l'événement appartient désormais à une autre réservation, rien n'est écrit
+    private static final class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static int attempts(OutboxEventEntity event) {
+        return event.getAttempts() == null ? 1 : event.getAttempts();
+    }
+
+    private Mono<Boolean> fail(OutboxEventEntity event, Throwable error) {
+        int attempts = attempts(event);
+        boolean exhausted = attempts >= maxAttempts;
+        String message = String.valueOf(error.getMessage());
+        if (message.length() > MAX_ERROR_LENGTH) message = message.substring(0, MAX_ERROR_LENGTH);
+        // 2, 4, 8... secondes, plafonné à une heure
+        long retryDelay = Math.min(MAX_RETRY_DELAY_SECONDS, 1L << Math.min(attempts, 12));
+
+        if (exhausted) {
+            log.error("Outbox : événement {} ({}) abandonné après {} tentatives : {}", event.getId(), event.getEventType(), attempts, message);
+        } else {
+            log.warn("Outbox : échec de l'événement {} ({}), tentative {} : {}", event.getId(), event.getEventType(), attempts, message);
+        }
+        return outboxEventRepository.markFailed(event.getId(), attempts, exhausted ? STATUS_FAILED : STATUS_PENDING, message, (double) retryDelay)
+            .thenReturn(false)
+            .onErrorReturn(false);
+    }
+}
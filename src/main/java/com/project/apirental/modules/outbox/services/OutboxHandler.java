@@ -0,0 +1,17 @@
+package com.project.apirental.modules.outbox.services;
+
+import com.project.apirental.modules.outbox.domain.OutboxEventEntity;
+import com.project.apirental.modules.outbox.domain.OutboxEventType;
+import reactor.core.publisher.Mono;
+
+/**
+ * Traitement des événements d'un type donné. Exécuté dans la même transaction que la suppression
+ * de l'événement : soit tous les effets sont écrits et l'événement disparaît, soit rien n'est écrit
+ * et l'événement sera rejoué.
+ */
+public interface OutboxHandler {
+
+    OutboxEventType type();
+
+    Mono<Void> handle(OutboxEventEntity event);
+}
@@ -0,0 +1,45 @@
+package com.project.apirental.modules.outbox.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.apirental.modules.outbox.domain.OutboxEventEntity;
+import com.project.apirental.modules.outbox.domain.OutboxEventType;
+import com.project.apirental.modules.outbox.repository.OutboxEventRepository;
+import com.project.apirental.shared.utils.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Écriture dans l'outbox : l'événement est inséré dans la transaction de l'appelant,
+ * il n'existe donc que si l'opération métier est validée.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDispatcher outboxDispatcher;
+    private final ObjectMapper objectMapper;
+
+    public Mono<Void> enqueue(OutboxEventType type, UUID aggregateId, Object payload) {
+        return Mono.fromCallable(() -> OutboxEventEntity.builder()
+                .id(UUID.randomUUID())
+                .eventType(type)
+                .aggregateId(aggregateId)
+                .payload(objectMapper.writeValueAsString(payload))
+                .status(OutboxDispatcher.STATUS_PENDING)
+                .attempts(0)
+                .availableAt(LocalDateTime.now())
+                .createdAt(LocalDateTime.now())
+                .isNewRecord(true)
+                .build())
+            .onErrorMap(JsonProcessingException.class, e -> new RuntimeException("Événement " + type + " non sérialisable : " + e.getMessage()))
+            .flatMap(outboxEventRepository::save)
+            // Déclenche le dispatcher dès la validation, sans attendre le prochain passage planifié
+            .then(TransactionHooks.afterCommit(outboxDispatcher::scheduledDispatch));
+    }
+}
@@ -0,0 +1,59 @@
+package com.project.apirental.modules.pricing.api;
+
+import com.project.apirental.modules.pricing.domain.PricingRuleEntity;
+import com.project.apirental.modules.pricing.dto.PricingRuleRequestDTO;
+import com.project.apirental.modules.pricing.dto.QuoteDTO;
+import com.project.apirental.modules.pricing.dto.QuoteRequestDTO;
+import com.project.apirental.modules.pricing.services.PricingQuoteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/pricing")
+@RequiredArgsConstructor
+@Tag(name = "Pricing", description = "Devis et règles tarifaires")
+@SecurityRequirement(name = "bearerAuth")
+public class PricingController {
+
+    private final PricingQuoteService pricingQuoteService;
+
+    // Route publique : chiffrage de plusieurs combinaisons véhicule (+ chauffeur) en un appel,
+    // sans créer de location (page de résultats de recherche)
+    @Operation(summary = "Devis groupés pour plusieurs combinaisons véhicule / chauffeur")
+    @PostMapping("/quotes")
+    public Flux<QuoteDTO> quote(@RequestBody List<@Valid QuoteRequestDTO> requests) {
+        return pricingQuoteService.quoteAll(requests);
+    }
+
+    @Operation(summary = "Lister les règles tarifaires d'une organisation")
+    @GetMapping("/rules/org/{orgId}")
+    @PreAuthorize("hasRole('ORGANIZATION')")
+    public Flux<PricingRuleEntity> getRules(@PathVariable UUID orgId) {
+        return pricingQuoteService.getRules(orgId);
+    }
+
+    @Operation(summary = "Ajouter une règle tarifaire (WEEKEND ou SEASONAL)")
+    @PostMapping("/rules/org/{orgId}")
+    @PreAuthorize("hasRole('ORGANIZATION')")
+    public Mono<ResponseEntity<PricingRuleEntity>> addRule(@PathVariable UUID orgId, @Valid @RequestBody PricingRuleRequestDTO request) {
+        return pricingQuoteService.addRule(orgId, request).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Supprimer une règle tarifaire")
+    @DeleteMapping("/rules/org/{orgId}/{ruleId}")
+    @PreAuthorize("hasRole('ORGANIZATION')")
+    public Mono<ResponseEntity<Void>> deleteRule(@PathVariable UUID orgId, @PathVariable UUID ruleId) {
+        return pricingQuoteService.deleteRule(orgId, ruleId).then(Mono.just(ResponseEntity.noContent().build()));
+    }
+}
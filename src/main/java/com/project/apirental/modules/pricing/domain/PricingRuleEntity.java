@@ -0,0 +1,37 @@
+package com.project.apirental.modules.pricing.domain;
+
+import com.project.apirental.shared.enums.ResourceType;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("pricing_rules")
+public class PricingRuleEntity implements Persistable<UUID> {
+    @Id
+    private UUID id;
+    private UUID organizationId;
+    private UUID agencyId; // NULL = toute l'organisation
+    private ResourceType resourceType; // NULL = véhicules et chauffeurs
+
+    private String ruleType; // WEEKEND, SEASONAL
+    private BigDecimal multiplier; // ex: 1.20 = +20%, 0.90 = -10%
+    private LocalDate startDate; // SEASONAL uniquement (inclus)
+    private LocalDate endDate;
+    private String label;
+
+    private LocalDateTime createdAt;
+
+    @Transient @Builder.Default @JsonIgnore private boolean isNewRecord = false;
+    @Override public boolean isNew() { return isNewRecord || id == null; }
+}
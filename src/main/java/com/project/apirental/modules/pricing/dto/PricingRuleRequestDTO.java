@@ -0,0 +1,17 @@
+package com.project.apirental.modules.pricing.dto;
+
+import com.project.apirental.shared.enums.ResourceType;
+import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public record PricingRuleRequestDTO(
+    UUID agencyId, // Optionnel : toute l'organisation si absent
+    ResourceType resourceType, // Optionnel : véhicules et chauffeurs si absent
+    @NotNull String ruleType, // WEEKEND ou SEASONAL
+    @NotNull BigDecimal multiplier, // ex: 1.20 = +20%
+    LocalDate startDate, // SEASONAL : début inclus
+    LocalDate endDate, // SEASONAL : fin incluse
+    String label
+) {}
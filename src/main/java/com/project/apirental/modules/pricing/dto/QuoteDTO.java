@@ -0,0 +1,26 @@
+package com.project.apirental.modules.pricing.dto;
+
+import com.project.apirental.shared.enums.RentalType;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Devis d'une combinaison ; "error" est renseigné (et les montants nuls) si elle ne peut pas être chiffrée
+public record QuoteDTO(
+    UUID vehicleId,
+    UUID driverId,
+    RentalType rentalType,
+    long duration, // jours (DAILY) ou heures (HOURLY) facturés
+    BigDecimal vehicleUnitPrice,
+    BigDecimal driverUnitPrice,
+    BigDecimal baseAmount, // règles week-end / saison incluses
+    BigDecimal commissionAmount,
+    BigDecimal depositAmount,
+    BigDecimal totalAmount,
+    String currency,
+    String error
+) {
+    public static QuoteDTO failed(QuoteRequestDTO request, String error) {
+        return new QuoteDTO(request.vehicleId(), request.driverId(), request.rentalType(), 0,
+            null, null, null, null, null, null, null, error);
+    }
+}
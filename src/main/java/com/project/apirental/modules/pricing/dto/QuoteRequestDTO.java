@@ -0,0 +1,15 @@
+package com.project.apirental.modules.pricing.dto;
+
+import com.project.apirental.shared.enums.RentalType;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Une combinaison véhicule (+ chauffeur optionnel) à chiffrer sur une période
+public record QuoteRequestDTO(
+    @NotNull UUID vehicleId,
+    UUID driverId,
+    @NotNull LocalDateTime startDate,
+    @NotNull LocalDateTime endDate,
+    @NotNull RentalType rentalType
+) {}
@@ -3,9 +3,17 @@ package com.project.apirental.modules.pricing.repository;
 import com.project.apirental.modules.pricing.domain.PricingEntity;
 import com.project.apirental.shared.enums.ResourceType;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.Collection;
 import java.util.UUID;
 
 public interface PricingRepository extends R2dbcRepository<PricingEntity, UUID> {
     Mono<PricingEntity> findByResourceTypeAndResourceId(ResourceType resourceType, UUID resourceId);
+
+    // Chargement groupé des prix (une seule requête IN pour toute une page de ressources)
+    Flux<PricingEntity> findAllByResourceTypeAndResourceIdIn(ResourceType resourceType, Collection<UUID> resourceIds);
+
+    // Grille complète d'une organisation (chargement du cache du moteur de devis)
+    Flux<PricingEntity> findAllByOrganizationId(UUID organizationId);
 }
@@ -0,0 +1,10 @@
+package com.project.apirental.modules.pricing.repository;
+
+import com.project.apirental.modules.pricing.domain.PricingRuleEntity;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import java.util.UUID;
+
+public interface PricingRuleRepository extends R2dbcRepository<PricingRuleEntity, UUID> {
+    Flux<PricingRuleEntity> findAllByOrganizationId(UUID organizationId);
+}
@@ -0,0 +1,271 @@
+package com.project.apirental.modules.pricing.services;
+
+import com.project.apirental.modules.agency.domain.AgencyEntity;
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.pricing.domain.PricingEntity;
+import com.project.apirental.modules.pricing.domain.PricingRuleEntity;
+import com.project.apirental.modules.pricing.dto.PricingRuleRequestDTO;
+import com.project.apirental.modules.pricing.dto.QuoteDTO;
+import com.project.apirental.modules.pricing.dto.QuoteRequestDTO;
+import com.project.apirental.modules.pricing.repository.PricingRepository;
+import com.project.apirental.modules.pricing.repository.PricingRuleRepository;
+import com.project.apirental.shared.enums.RentalType;
+import com.project.apirental.shared.enums.ResourceType;
+import com.project.apirental.shared.utils.LruMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Moteur de devis : montant de base (durée x tarif, règles week-end / saison), commission et caution.
+ * La grille tarifaire d'une organisation (prix, règles, paramètres de caution des agences) est chargée
+ * en mémoire en trois requêtes puis réutilisée pour tous les devis de cette organisation.
+ * Invalidation : setPricing, écritures des règles, mise à jour d'agence ; TTL en filet de sécurité.
+ */
+@Service
+@RequiredArgsConstructor
+public class PricingQuoteService {
+
+    public static final BigDecimal COMMISSION_RATE = new BigDecimal("0.01");
+    public static final double DEFAULT_DEPOSIT_PERCENTAGE = 10.0;
+    public static final int MAX_BATCH_SIZE = 200;
+    public static final int MAX_PERIOD_DAYS = 366;
+    public static final Set<String> RULE_TYPES = Set.of("WEEKEND", "SEASONAL");
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final int MAX_ORGANIZATIONS = 1_000;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final PricingRepository pricingRepository;
+    private final PricingRuleRepository pricingRuleRepository;
+    private final AgencyRepository agencyRepository;
+    private final DatabaseClient databaseClient;
+
+    private record ResourceKey(ResourceType type, UUID id) {}
+
+    private record PriceTable(Map<ResourceKey, PricingEntity> prices, List<PricingRuleEntity> rules,
+                              Map<UUID, AgencyEntity> agencies, Instant expiresAt) {}
+
+    private record VehicleOwner(UUID vehicleId, UUID organizationId, UUID agencyId) {}
+
+    private final Map<UUID, PriceTable> tables = Collections.synchronizedMap(new LruMap<>(MAX_ORGANIZATIONS));
+    // Un chargement commencé avant une invalidation n'est pas mis en cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // =================================================================================
+    // DEVIS
+    // =================================================================================
+
+    /**
+     * Devis d'une combinaison dont l'organisation et l'agence sont déjà connues (création de location).
+     * Échoue si la combinaison ne peut pas être chiffrée.
+     */
+    public Mono<QuoteDTO> quote(UUID orgId, UUID agencyId, QuoteRequestDTO request) {
+        return table(orgId)
+            .map(table -> compute(table, agencyId, request))
+            .flatMap(quote -> quote.error() != null
+                ? Mono.error(new RuntimeException(quote.error()))
+                : Mono.just(quote));
+    }
+
+    /**
+     * Devis groupés : une requête pour résoudre les véhicules, une grille (en cache) par organisation.
+     * Les combinaisons non chiffrables sont renvoyées avec leur motif, dans l'ordre de la demande.
+     */
+    public Flux<QuoteDTO> quoteAll(List<QuoteRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) return Flux.empty();
+        if (requests.size() > MAX_BATCH_SIZE) {
+            return Flux.error(new RuntimeException("Trop de devis demandés (maximum " + MAX_BATCH_SIZE + ")."));
+        }
+        List<UUID> vehicleIds = requests.stream().map(QuoteRequestDTO::vehicleId).distinct().toList();
+
+        return databaseClient.sql("SELECT id, organization_id, agency_id FROM vehicles WHERE id IN (:ids)")
+            .bind("ids", vehicleIds)
+            .map((row, meta) -> new VehicleOwner(row.get("id", UUID.class),
+                row.get("organization_id", UUID.class), row.get("agency_id", UUID.class)))
+            .all()
+            .collectMap(VehicleOwner::vehicleId)
+            .flatMapMany(owners -> Flux.fromIterable(owners.values().stream().map(VehicleOwner::organizationId).distinct().toList())
+                .flatMap(orgId -> table(orgId).map(table -> Map.entry(orgId, table)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMapIterable(byOrg -> requests.stream()
+                    .map(request -> {
+                        VehicleOwner owner = owners.get(request.vehicleId());
+                        if (owner == null) return QuoteDTO.failed(request, "Véhicule non trouvé.");
+                        return compute(byOrg.get(owner.organizationId()), owner.agencyId(), request);
+                    })
+                    .toList()));
+    }
+
+    private QuoteDTO compute(PriceTable table, UUID agencyId, QuoteRequestDTO request) {
+        if (request.startDate() == null || request.endDate() == null || !request.endDate().isAfter(request.startDate())) {
+            return QuoteDTO.failed(request, "La date de fin doit être postérieure à la date de début.");
+        }
+        Duration period = Duration.between(request.startDate(), request.endDate());
+        if (period.compareTo(Duration.ofDays(MAX_PERIOD_DAYS)) > 0) {
+            return QuoteDTO.failed(request, "La période demandée ne doit pas dépasser " + MAX_PERIOD_DAYS + " jours.");
+        }
+        boolean daily = request.rentalType() == RentalType.DAILY;
+
+        PricingEntity vehiclePrice = table.prices().get(new ResourceKey(ResourceType.VEHICLE, request.vehicleId()));
+        BigDecimal vUnit = vehiclePrice == null ? null : (daily ? vehiclePrice.getPricePerDay() : vehiclePrice.getPricePerHour());
+        if (vUnit == null) return QuoteDTO.failed(request, "Aucun tarif défini pour ce véhicule.");
+
+        BigDecimal dUnit = BigDecimal.ZERO;
+        if (request.driverId() != null) {
+            PricingEntity driverPrice = table.prices().get(new ResourceKey(ResourceType.DRIVER, request.driverId()));
+            dUnit = driverPrice == null ? null : (daily ? driverPrice.getPricePerDay() : driverPrice.getPricePerHour());
+            if (dUnit == null) return QuoteDTO.failed(request, "Aucun tarif défini pour ce chauffeur.");
+        }
+
+        long duration = daily ? Math.max(1, period.toDays()) : Math.max(1, period.toHours());
+
+        // Unités facturées par jour calendaire : les règles s'appliquent jour par jour.
+        // L'unité n commence à début + n unités ; on compte celles commencées avant chaque minuit.
+        long unitNanos = (daily ? Duration.ofDays(1) : Duration.ofHours(1)).toNanos();
+        Map<LocalDate, Long> unitsPerDay = new TreeMap<>();
+        long billed = 0;
+        for (LocalDate day = request.startDate().toLocalDate(); billed < duration; day = day.plusDays(1)) {
+            long untilMidnight = Duration.between(request.startDate(), day.plusDays(1).atStartOfDay()).toNanos();
+            long startedBefore = Math.min(duration, Math.ceilDiv(untilMidnight, unitNanos));
+            unitsPerDay.put(day, startedBefore - billed);
+            billed = startedBefore;
+        }
+
+        BigDecimal vehicleAmount = BigDecimal.ZERO;
+        BigDecimal driverAmount = BigDecimal.ZERO;
+        for (Map.Entry<LocalDate, Long> entry : unitsPerDay.entrySet()) {
+            BigDecimal units = BigDecimal.valueOf(entry.getValue());
+            vehicleAmount = vehicleAmount.add(vUnit.multiply(units).multiply(multiplier(table, agencyId, ResourceType.VEHICLE, entry.getKey())));
+            if (request.driverId() != null) {
+                driverAmount = driverAmount.add(dUnit.multiply(units).multiply(multiplier(table, agencyId, ResourceType.DRIVER, entry.getKey())));
+            }
+        }
+
+        BigDecimal baseAmount = vehicleAmount.add(driverAmount).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal commission = baseAmount.multiply(COMMISSION_RATE).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal deposit = baseAmount.multiply(depositRate(table.agencies().get(agencyId))).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal total = baseAmount.add(commission).add(deposit);
+
+        return new QuoteDTO(request.vehicleId(), request.driverId(), request.rentalType(), duration,
+            vUnit, request.driverId() != null ? dUnit : null, baseAmount, commission, deposit, total,
+            vehiclePrice.getCurrency(), null);
+    }
+
+    // Les règles applicables à un même jour se cumulent (week-end x haute saison)
+    private BigDecimal multiplier(PriceTable table, UUID agencyId, ResourceType type, LocalDate day) {
+        BigDecimal result = BigDecimal.ONE;
+        for (PricingRuleEntity rule : table.rules()) {
+            if (rule.getAgencyId() != null && !rule.getAgencyId().equals(agencyId)) continue;
+            if (rule.getResourceType() != null && rule.getResourceType() != type) continue;
+            boolean applies = switch (rule.getRuleType()) {
+                case "WEEKEND" -> day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+                case "SEASONAL" -> (rule.getStartDate() == null || !day.isBefore(rule.getStartDate()))
+                    && (rule.getEndDate() == null || !day.isAfter(rule.getEndDate()));
+                default -> false;
+            };
+            if (applies) result = result.multiply(rule.getMultiplier());
+        }
+        return result;
+    }
+
+    // Caution : pourcentage de l'agence (10% par défaut), aucune si l'agence ne l'exige pas
+    private BigDecimal depositRate(AgencyEntity agency) {
+        if (agency != null && Boolean.FALSE.equals(agency.getRequireDeposit())) return BigDecimal.ZERO;
+        double percentage = agency != null && agency.getDepositPercentage() != null
+            ? agency.getDepositPercentage()
+            : DEFAULT_DEPOSIT_PERCENTAGE;
+        return BigDecimal.valueOf(percentage).divide(HUNDRED);
+    }
+
+    // =================================================================================
+    // RÈGLES TARIFAIRES
+    // =================================================================================
+
+    public Flux<PricingRuleEntity> getRules(UUID orgId) {
+        return pricingRuleRepository.findAllByOrganizationId(orgId);
+    }
+
+    public Mono<PricingRuleEntity> addRule(UUID orgId, PricingRuleRequestDTO request) {
+        String ruleType = request.ruleType() == null ? null : request.ruleType().toUpperCase();
+        if (!RULE_TYPES.contains(ruleType)) {
+            return Mono.error(new RuntimeException("Type de règle inconnu (WEEKEND ou SEASONAL)."));
+        }
+        if (request.multiplier() == null || request.multiplier().signum() <= 0) {
+            return Mono.error(new RuntimeException("Le multiplicateur doit être strictement positif."));
+        }
+        if ("SEASONAL".equals(ruleType) && (request.startDate() == null || request.endDate() == null
+                || request.endDate().isBefore(request.startDate()))) {
+            return Mono.error(new RuntimeException("Une règle saisonnière exige une période valide."));
+        }
+        PricingRuleEntity rule = PricingRuleEntity.builder()
+            .id(UUID.randomUUID())
+            .organizationId(orgId)
+            .agencyId(request.agencyId())
+            .resourceType(request.resourceType())
+            .ruleType(ruleType)
+            .multiplier(request.multiplier())
+            .startDate(request.startDate())
+            .endDate(request.endDate())
+            .label(request.label())
+            .createdAt(LocalDateTime.now())
+            .isNewRecord(true)
+            .build();
+        return pricingRuleRepository.save(rule)
+            .doOnSuccess(saved -> evictOrganization(orgId));
+    }
+
+    public Mono<Void> deleteRule(UUID orgId, UUID ruleId) {
+        return pricingRuleRepository.findById(ruleId)
+            .filter(rule -> rule.getOrganizationId().equals(orgId))
+            .switchIfEmpty(Mono.error(new RuntimeException("Règle tarifaire non trouvée")))
+            .flatMap(rule -> pricingRuleRepository.delete(rule))
+            .doOnSuccess(v -> evictOrganization(orgId));
+    }
+
+    // =================================================================================
+    // CACHE
+    // =================================================================================
+
+    public void evictOrganization(UUID orgId) {
+        invalidations.incrementAndGet();
+        tables.remove(orgId);
+    }
+
+    private Mono<PriceTable> table(UUID orgId) {
+        PriceTable cached = tables.get(orgId);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return Mono.just(cached);
+        }
+        long version = invalidations.get();
+        return Mono.zip(
+                pricingRepository.findAllByOrganizationId(orgId)
+                    .collectMap(p -> new ResourceKey(p.getResourceType(), p.getResourceId())),
+                pricingRuleRepository.findAllByOrganizationId(orgId).collectList(),
+                agencyRepository.findAllByOrganizationId(orgId).collect(Collectors.toMap(AgencyEntity::getId, a -> a)))
+            .map(t -> new PriceTable(t.getT1(), t.getT2(), t.getT3(), Instant.now().plus(TTL)))
+            .doOnNext(table -> {
+                if (invalidations.get() == version) {
+                    tables.put(orgId, table);
+                }
+            });
+    }
+}
@@ -3,17 +3,25 @@ package com.project.apirental.modules.pricing.services;
 import com.project.apirental.modules.pricing.domain.PricingEntity;
 import com.project.apirental.modules.pricing.repository.PricingRepository;
 import com.project.apirental.shared.enums.ResourceType;
+import com.project.apirental.shared.events.ResourceChangedEvent;
+import com.project.apirental.shared.utils.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class PricingService {
     private final PricingRepository pricingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PricingQuoteService pricingQuoteService;
 
     public Mono<PricingEntity> setPricing(UUID orgId, ResourceType type, UUID resourceId, BigDecimal perHour, BigDecimal perDay) {
         return pricingRepository.findByResourceTypeAndResourceId(type, resourceId)
@@ -30,10 +38,27 @@ public class PricingService {
                 pricing.setPricePerDay(perDay);
                 pricing.setUpdatedAt(LocalDateTime.now());
                 return pricingRepository.save(pricing);
-            });
+            })
+            // Invalidation après validation : un lecteur concurrent ne remet pas l'ancien prix en cache
+            .flatMap(saved -> TransactionHooks.afterCommit(() -> {
+                pricingQuoteService.evictOrganization(orgId);
+                eventPublisher.publishEvent(new ResourceChangedEvent(type, resourceId));
+            }).thenReturn(saved));
     }
 
     public Mono<PricingEntity> getPricing(ResourceType type, UUID resourceId) {
         return pricingRepository.findByResourceTypeAndResourceId(type, resourceId);
     }
+
+    /**
+     * Récupère les prix d'un lot de ressources en une seule requête, indexés par resourceId.
+     * Les ressources sans prix sont simplement absentes de la map.
+     */
+    public Mono<Map<UUID, PricingEntity>> getPricings(ResourceType type, Collection<UUID> resourceIds) {
+        if (resourceIds.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        return pricingRepository.findAllByResourceTypeAndResourceIdIn(type, resourceIds)
+            .collectMap(PricingEntity::getResourceId);
+    }
 }
@@ -1,14 +1,18 @@
 package com.project.apirental.modules.rental.api;
 
+import com.project.apirental.modules.idempotency.services.IdempotencyService;
 import com.project.apirental.modules.rental.domain.RentalEntity;
 import com.project.apirental.modules.rental.dto.AgencyRentalRequest;
 import com.project.apirental.modules.rental.dto.PaymentRequest;
 import com.project.apirental.modules.rental.dto.RentalDetailResponseDTO;
 import com.project.apirental.modules.rental.dto.RentalInitRequest;
 import com.project.apirental.modules.rental.dto.RentalInitResponse;
+import com.project.apirental.modules.rental.dto.SweeperStatsDTO;
+import com.project.apirental.modules.rental.services.RentalHoldSweeper;
 import com.project.apirental.modules.rental.services.RentalPaymentService;
 import com.project.apirental.modules.rental.services.RentalService;
 import com.project.apirental.modules.auth.repository.UserRepository;
+import com.project.apirental.shared.dto.PageResponseDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -32,7 +36,9 @@ public class RentalController {
 
     private final RentalService rentalService;
     private final RentalPaymentService paymentService;
+    private final RentalHoldSweeper rentalHoldSweeper;
     private final UserRepository userRepository;
+    private final IdempotencyService idempotencyService;
 
     // =================================================================================
     // DÉTAILS (Client & Agence/Org)
@@ -48,13 +54,17 @@ public class RentalController {
     // ACTIONS (Init, Pay, Start, End, Cancel)
     // =================================================================================
 
+    // En-tête Idempotency-Key optionnel : un nouvel essai avec la même clé renvoie la réponse initiale
     @Operation(summary = "Initier une réservation (Devis + Vérification)")
     @PostMapping("/init")
-    public Mono<ResponseEntity<RentalInitResponse>> initiateRental(@RequestBody @Valid RentalInitRequest request) {
+    public Mono<ResponseEntity<RentalInitResponse>> initiateRental(
+            @RequestBody @Valid RentalInitRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         return ReactiveSecurityContextHolder.getContext()
             .map(ctx -> ctx.getAuthentication().getName())
             .flatMap(userRepository::findByEmail)
-            .flatMap(user -> rentalService.initiateRental(user.getId(), request))
+            .flatMap(user -> idempotencyService.execute("RENTAL_INIT:" + user.getId(), idempotencyKey, request,
+                RentalInitResponse.class, () -> rentalService.initiateRental(user.getId(), request)))
             .map(ResponseEntity::ok);
     }
 
@@ -68,12 +78,15 @@ public class RentalController {
                 .map(ResponseEntity::ok);
     }
 
+    // En-tête Idempotency-Key optionnel : un nouvel essai avec la même clé ne crée pas de second paiement
     @Operation(summary = "Payer une réservation (60% ou solde)")
     @PostMapping("/{id}/pay")
     public Mono<ResponseEntity<RentalEntity>> payRental(
             @PathVariable UUID id,
-            @RequestBody @Valid PaymentRequest request) {
-        return paymentService.processPayment(id, request)
+            @RequestBody @Valid PaymentRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute("RENTAL_PAY:" + id, idempotencyKey, request,
+                RentalEntity.class, () -> paymentService.processPayment(id, request))
                 .map(ResponseEntity::ok);
     }
 
@@ -116,6 +129,17 @@ public class RentalController {
             .flatMapMany(user -> rentalService.getClientActiveReservations(user.getId()));
     }
 
+    @Operation(summary = "CLIENT: Mes réservations actives (Paginé par curseur)")
+    @GetMapping("/client/reservations/active/page")
+    public Mono<PageResponseDTO<RentalEntity>> getClientActiveReservationsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(ctx -> ctx.getAuthentication().getName())
+            .flatMap(userRepository::findByEmail)
+            .flatMap(user -> rentalService.getClientActiveReservationsPage(user.getId(), cursor, size));
+    }
+
     @Operation(summary = "CLIENT: Mes locations (En cours et Terminées)")
     @GetMapping("/client/rentals/history")
     public Flux<RentalEntity> getClientRentalsHistory() {
@@ -125,6 +149,17 @@ public class RentalController {
             .flatMapMany(user -> rentalService.getClientRentalsHistory(user.getId()));
     }
 
+    @Operation(summary = "CLIENT: Mes locations (Paginé par curseur)")
+    @GetMapping("/client/rentals/history/page")
+    public Mono<PageResponseDTO<RentalEntity>> getClientRentalsHistoryPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(ctx -> ctx.getAuthentication().getName())
+            .flatMap(userRepository::findByEmail)
+            .flatMap(user -> rentalService.getClientRentalsHistoryPage(user.getId(), cursor, size));
+    }
+
     // =================================================================================
     // LISTINGS AGENCE
     // =================================================================================
@@ -136,6 +171,16 @@ public class RentalController {
         return rentalService.getAgencyReservations(agencyId);
     }
 
+    @Operation(summary = "AGENCE: Réservations (Paginé par curseur)")
+    @GetMapping("/agency/{agencyId}/reservations/page")
+    @PreAuthorize("hasRole('ORGANIZATION') or hasRole('AGENT')")
+    public Mono<PageResponseDTO<RentalEntity>> getAgencyReservationsPage(
+            @PathVariable UUID agencyId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return rentalService.getAgencyReservationsPage(agencyId, cursor, size);
+    }
+
     @Operation(summary = "AGENCE: Toutes les locations (En cours et Terminées)")
     @GetMapping("/agency/{agencyId}/rentals")
     @PreAuthorize("hasRole('ORGANIZATION') or hasRole('AGENT')")
@@ -143,6 +188,16 @@ public class RentalController {
         return rentalService.getAgencyRentals(agencyId);
     }
 
+    @Operation(summary = "AGENCE: Locations (Paginé par curseur)")
+    @GetMapping("/agency/{agencyId}/rentals/page")
+    @PreAuthorize("hasRole('ORGANIZATION') or hasRole('AGENT')")
+    public Mono<PageResponseDTO<RentalEntity>> getAgencyRentalsPage(
+            @PathVariable UUID agencyId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return rentalService.getAgencyRentalsPage(agencyId, cursor, size);
+    }
+
     // =================================================================================
     // LISTINGS ORGANISATION
     // =================================================================================
@@ -154,10 +209,37 @@ public class RentalController {
         return rentalService.getOrganizationReservations(orgId);
     }
 
+    @Operation(summary = "ORGANISATION: Réservations (Paginé par curseur)")
+    @GetMapping("/org/{orgId}/reservations/page")
+    @PreAuthorize("hasRole('ORGANIZATION')")
+    public Mono<PageResponseDTO<RentalEntity>> getOrgReservationsPage(
+            @PathVariable UUID orgId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return rentalService.getOrganizationReservationsPage(orgId, cursor, size);
+    }
+
     @Operation(summary = "ORGANISATION: Toutes les locations de toutes les agences")
     @GetMapping("/org/{orgId}/rentals")
     @PreAuthorize("hasRole('ORGANIZATION')")
     public Flux<RentalEntity> getOrgRentals(@PathVariable UUID orgId) {
         return rentalService.getOrganizationRentals(orgId);
     }
+
+    @Operation(summary = "ORGANISATION: Locations (Paginé par curseur)")
+    @GetMapping("/org/{orgId}/rentals/page")
+    @PreAuthorize("hasRole('ORGANIZATION')")
+    public Mono<PageResponseDTO<RentalEntity>> getOrgRentalsPage(
+            @PathVariable UUID orgId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return rentalService.getOrganizationRentalsPage(orgId, cursor, size);
+    }
+
+    @Operation(summary = "Statistiques d'expiration des réservations PENDING (instance courante)")
+    @GetMapping("/sweeper/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<SweeperStatsDTO> getSweeperStats() {
+        return Mono.fromSupplier(rentalHoldSweeper::getStats);
+    }
 }
@@ -3,11 +3,19 @@ package com.project.apirental.modules.rental.api;
 import com.project.apirental.modules.auth.repository.UserRepository;
 import com.project.apirental.modules.rental.dto.TransactionDetailResponseDTO;
 import com.project.apirental.modules.rental.dto.TransactionResponseDTO;
+import com.project.apirental.modules.rental.services.TransactionExportService;
 import com.project.apirental.modules.rental.services.TransactionService;
+import com.project.apirental.shared.dto.PageResponseDTO;
+import com.project.apirental.shared.enums.ExportFormat;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
@@ -15,6 +23,8 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.UUID;
 
 @RestController
@@ -25,6 +35,7 @@ import java.util.UUID;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
     private final UserRepository userRepository;
 
     @Operation(summary = "Détails d'une transaction (Client & Agence/Org)")
@@ -42,6 +53,17 @@ public class TransactionController {
             .flatMapMany(user -> transactionService.getClientTransactions(user.getId()));
     }
 
+    @Operation(summary = "CLIENT: Mes transactions (Paginé par curseur)")
+    @GetMapping("/client/history/page")
+    public Mono<PageResponseDTO<TransactionResponseDTO>> getMyTransactionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(ctx -> ctx.getAuthentication().getName())
+            .flatMap(userRepository::findByEmail)
+            .flatMap(user -> transactionService.getClientTransactionsPage(user.getId(), cursor, size));
+    }
+
     @Operation(summary = "AGENCE: Historique des transactions (Revenus)")
     @GetMapping("/agency/{agencyId}")
     @PreAuthorize("hasRole('ORGANIZATION') or hasRole('AGENT')")
@@ -49,10 +71,73 @@ public class TransactionController {
         return transactionService.getAgencyTransactions(agencyId);
     }
 
+    @Operation(summary = "AGENCE: Historique des transactions (Paginé par curseur)")
+    @GetMapping("/agency/{agencyId}/page")
+    @PreAuthorize("hasRole('ORGANIZATION') or hasRole('AGENT')")
+    public Mono<PageResponseDTO<TransactionResponseDTO>> getAgencyTransactionsPage(
+            @PathVariable UUID agencyId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return transactionService.getAgencyTransactionsPage(agencyId, cursor, size);
+    }
+
     @Operation(summary = "ORGANISATION: Grand livre (Revenus Agences + Coûts Abonnements)")
     @GetMapping("/org/{orgId}")
     @PreAuthorize("hasRole('ORGANIZATION')")
     public Flux<TransactionResponseDTO> getOrganizationTransactions(@PathVariable UUID orgId) {
         return transactionService.getOrganizationTransactions(orgId);
     }
+
+    @Operation(summary = "ORGANISATION: Grand livre (Paginé par curseur)")
+    @GetMapping("/org/{orgId}/page")
+    @PreAuthorize("hasRole('ORGANIZATION')")
+    public Mono<PageResponseDTO<TransactionResponseDTO>> getOrganizationTransactionsPage(
+            @PathVariable UUID orgId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return transactionService.getOrganizationTransactionsPage(orgId, cursor, size);
+    }
+
+    // =================================================================================
+    // EXPORTS COMPTABLES (flux, compressés en gzip si le client l'accepte)
+    // =================================================================================
+
+    @Operation(summary = "ORGANISATION: Export du grand livre (CSV ou colonnaire)",
+               description = "Revenus locatifs et coûts d'abonnement sur [from, to[, par date croissante. Défaut : année en cours.")
+    @GetMapping("/org/{orgId}/export")
+    @PreAuthorize("hasRole('ORGANIZATION')")
+    public ResponseEntity<Flux<String>> exportOrganizationTransactions(
+            @PathVariable UUID orgId,
+            @Parameter(description = "Date de début incluse (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Date de fin exclue (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "CSV ou COLUMNAR") @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        LocalDate start = (from != null) ? from : LocalDate.now().withDayOfYear(1);
+        LocalDate end = (to != null) ? to : start.plusYears(1);
+        return exportResponse("transactions-" + start + "-" + end, format,
+                transactionExportService.exportOrganizationLedger(orgId, start, end, format));
+    }
+
+    @Operation(summary = "ORGANISATION: Export des locations (CSV ou colonnaire)",
+               description = "Locations créées sur [from, to[ dans toutes les agences. Défaut : année en cours.")
+    @GetMapping("/org/{orgId}/rentals/export")
+    @PreAuthorize("hasRole('ORGANIZATION')")
+    public ResponseEntity<Flux<String>> exportOrganizationRentals(
+            @PathVariable UUID orgId,
+            @Parameter(description = "Date de début incluse (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Date de fin exclue (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "CSV ou COLUMNAR") @RequestParam(defaultValue = "CSV") ExportFormat format) {
+        LocalDate start = (from != null) ? from : LocalDate.now().withDayOfYear(1);
+        LocalDate end = (to != null) ? to : start.plusYears(1);
+        return exportResponse("locations-" + start + "-" + end, format,
+                transactionExportService.exportOrganizationRentals(orgId, start, end, format));
+    }
+
+    private ResponseEntity<Flux<String>> exportResponse(String baseName, ExportFormat format, Flux<String> body) {
+        boolean csv = format == ExportFormat.CSV;
+        String filename = baseName + (csv ? ".csv" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
 }
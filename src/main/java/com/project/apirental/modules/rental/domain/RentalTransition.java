@@ -0,0 +1,37 @@
+package com.project.apirental.modules.rental.domain;
+
+import com.project.apirental.shared.enums.RentalStatus;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Table des transitions du cycle de vie d'une location : statuts de départ autorisés -> statut d'arrivée.
+ * Chaque transition est appliquée par un UPDATE conditionnel unique (RentalRepository.applyTransition) :
+ * si le statut a changé entre-temps, aucune ligne n'est modifiée et la transition échoue.
+ * Les passages liés aux paiements (PENDING -> RESERVED / PAID) dépendent du montant et restent dans RentalPaymentService.
+ */
+@Getter
+public enum RentalTransition {
+
+    START(List.of(RentalStatus.PAID), RentalStatus.ONGOING,
+        "La location doit être entièrement payée (PAID) pour démarrer."),
+    SIGNAL_END(List.of(RentalStatus.ONGOING), RentalStatus.UNDER_REVIEW,
+        "Seule une location en cours peut être signalée comme terminée."),
+    VALIDATE_RETURN(List.of(RentalStatus.UNDER_REVIEW), RentalStatus.COMPLETED,
+        "Le retour ne peut être validé que pour une location en attente de validation."),
+    CANCEL(List.of(RentalStatus.PENDING, RentalStatus.RESERVED, RentalStatus.PAID), RentalStatus.CANCELLED,
+        "Impossible d'annuler cette réservation."),
+    EXPIRE(List.of(RentalStatus.PENDING), RentalStatus.EXPIRED,
+        "Seule une réservation en attente de paiement peut expirer.");
+
+    private final List<RentalStatus> from;
+    private final RentalStatus to;
+    private final String rejectionMessage;
+
+    RentalTransition(List<RentalStatus> from, RentalStatus to, String rejectionMessage) {
+        this.from = from;
+        this.to = to;
+        this.rejectionMessage = rejectionMessage;
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.apirental.modules.rental.dto;
+
+import com.project.apirental.shared.enums.RentalStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Contenu de l'événement outbox PAYMENT_RECEIVED : état de la location au moment du paiement,
+ * suffisant pour appliquer les effets de bord sans relire la location.
+ */
+public record PaymentReceivedPayload(
+    UUID rentalId,
+    UUID paymentId,
+    UUID agencyId,
+    UUID clientId,
+    UUID vehicleId,
+    UUID driverId,
+    LocalDateTime startDate,
+    LocalDateTime endDate,
+    BigDecimal amount,
+    BigDecimal amountPaid,
+    BigDecimal totalAmount,
+    RentalStatus oldStatus,
+    RentalStatus newStatus
+) {}
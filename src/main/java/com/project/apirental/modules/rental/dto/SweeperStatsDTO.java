@@ -0,0 +1,14 @@
+package com.project.apirental.modules.rental.dto;
+
+import java.time.LocalDateTime;
+
+// Compteurs du balayage des réservations PENDING expirées (depuis le démarrage de l'instance)
+public record SweeperStatsDTO(
+    long runs,
+    long expiredRentals,
+    long releasedReservations,
+    long failures,
+    LocalDateTime lastRunAt,
+    long lastRunExpired,
+    long lastRunDurationMs
+) {}
@@ -4,6 +4,7 @@ import com.project.apirental.modules.rental.domain.PaymentEntity;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import reactor.core.publisher.Flux;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public interface PaymentRepository extends R2dbcRepository<PaymentEntity, UUID> {
@@ -40,4 +41,27 @@ public interface PaymentRepository extends R2dbcRepository<PaymentEntity, UUID>
         ORDER BY p.transaction_date DESC
     """)
     Flux<PaymentEntity> findAllRentalPaymentsByOrganizationId(UUID orgId);
+
+    // --- Pagination par curseur (transaction_date, id) - cf. KeysetPagination ---
+    @Query("""
+        SELECT p.*
+        FROM payments p
+        JOIN rentals r ON p.rental_id = r.id
+        WHERE r.client_id = :clientId
+        AND (:cursorDate::timestamp IS NULL OR (p.transaction_date, p.id) < (:cursorDate::timestamp, :cursorId::uuid))
+        ORDER BY p.transaction_date DESC, p.id DESC
+        LIMIT :limit
+    """)
+    Flux<PaymentEntity> findPageByClientId(UUID clientId, LocalDateTime cursorDate, UUID cursorId, int limit);
+
+    @Query("""
+        SELECT p.*
+        FROM payments p
+        JOIN rentals r ON p.rental_id = r.id
+        WHERE r.agency_id = :agencyId
+        AND (:cursorDate::timestamp IS NULL OR (p.transaction_date, p.id) < (:cursorDate::timestamp, :cursorId::uuid))
+        ORDER BY p.transaction_date DESC, p.id DESC
+        LIMIT :limit
+    """)
+    Flux<PaymentEntity> findPageByAgencyId(UUID agencyId, LocalDateTime cursorDate, UUID cursorId, int limit);
 }
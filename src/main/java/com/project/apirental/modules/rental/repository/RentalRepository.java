@@ -7,6 +7,7 @@ import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -34,6 +35,59 @@ public interface RentalRepository extends R2dbcRepository<RentalEntity, UUID> {
     @Query("SELECT * FROM rentals WHERE client_id = :clientId AND vehicle_id = :vehicleId AND status = 'PENDING' LIMIT 1")
     Mono<RentalEntity> findExistingPendingRental(UUID clientId, UUID vehicleId);
 
-    @Query("SELECT COUNT(*) FROM rentals WHERE vehicle_id = :vehicleId AND start_date < :checkEnd AND end_date > :checkStart AND status NOT IN ('CANCELLED', 'COMPLETED')")
+    // --- Pagination par curseur (created_at, id) - cf. KeysetPagination ---
+    @Query("""
+        SELECT * FROM rentals
+        WHERE client_id = :clientId
+        AND status IN (:statuses)
+        AND (:cursorDate::timestamp IS NULL OR (created_at, id) < (:cursorDate::timestamp, :cursorId::uuid))
+        ORDER BY created_at DESC, id DESC
+        LIMIT :limit
+    """)
+    Flux<RentalEntity> findPageByClientIdAndStatusIn(UUID clientId, List<RentalStatus> statuses, LocalDateTime cursorDate, UUID cursorId, int limit);
+
+    @Query("""
+        SELECT * FROM rentals
+        WHERE agency_id = :agencyId
+        AND status IN (:statuses)
+        AND (:cursorDate::timestamp IS NULL OR (created_at, id) < (:cursorDate::timestamp, :cursorId::uuid))
+        ORDER BY created_at DESC, id DESC
+        LIMIT :limit
+    """)
+    Flux<RentalEntity> findPageByAgencyIdAndStatusIn(UUID agencyId, List<RentalStatus> statuses, LocalDateTime cursorDate, UUID cursorId, int limit);
+
+    @Query("""
+        SELECT r.*
+        FROM rentals r
+        JOIN agencies a ON r.agency_id = a.id
+        WHERE a.organization_id = :orgId
+        AND r.status IN (:statuses)
+        AND (:cursorDate::timestamp IS NULL OR (r.created_at, r.id) < (:cursorDate::timestamp, :cursorId::uuid))
+        ORDER BY r.created_at DESC, r.id DESC
+        LIMIT :limit
+    """)
+    Flux<RentalEntity> findPageByOrganizationIdAndStatusIn(UUID orgId, List<RentalStatus> statuses, LocalDateTime cursorDate, UUID cursorId, int limit);
+
+    // Transition atomique (cf. RentalTransition) : aucune ligne renvoyée si le statut courant n'est pas dans :fromStatuses
+    @Query("""
+        UPDATE rentals SET status = :toStatus, updated_at = LOCALTIMESTAMP
+        WHERE id = :id AND status IN (:fromStatuses)
+        RETURNING *
+    """)
+    Mono<RentalEntity> applyTransition(UUID id, List<RentalStatus> fromStatuses, RentalStatus toStatus);
+
+    // Verrouille la ligne jusqu'à la fin de la transaction : les paiements d'une même location sont sérialisés
+    @Query("SELECT * FROM rentals WHERE id = :id FOR UPDATE")
+    Mono<RentalEntity> findByIdForUpdate(UUID id);
+
+    // Paiement : seules les colonnes concernées sont écrites, le montant est incrémenté en base
+    @Query("""
+        UPDATE rentals SET amount_paid = amount_paid + :amount, status = :toStatus, updated_at = LOCALTIMESTAMP
+        WHERE id = :id AND status IN ('PENDING', 'RESERVED')
+        RETURNING *
+    """)
+    Mono<RentalEntity> applyPayment(UUID id, BigDecimal amount, RentalStatus toStatus);
+
+    @Query("SELECT COUNT(*) FROM rentals WHERE vehicle_id = :vehicleId AND start_date < :checkEnd AND end_date > :checkStart AND status NOT IN ('CANCELLED', 'COMPLETED', 'EXPIRED')")
     Mono<Long> countConflictingRentals(UUID vehicleId, LocalDateTime checkStart, LocalDateTime checkEnd);
 }
@@ -0,0 +1,123 @@
+package com.project.apirental.modules.rental.services;
+
+import com.project.apirental.modules.rental.domain.RentalEntity;
+import com.project.apirental.shared.enums.ResourceType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Réservation atomique des créneaux véhicule / chauffeur.
+ * La table resource_reservations porte une contrainte d'exclusion (ressource, tsrange) : deux locations
+ * ne peuvent pas occuper la même ressource sur des périodes qui se chevauchent, quel que soit le nombre
+ * d'instances de l'API. Seules les réservations d'une même ressource entrent en concurrence.
+ * <p>
+ * Cycle de vie : HOLD (posé à l'initiation, expire après HOLD_DURATION) -> CONFIRMED (au passage RESERVED/PAID)
+ * -> supprimée à l'annulation. Les HOLD expirés sont purgés paresseusement avant chaque nouvelle pose ;
+ * les échéances sont calculées avec l'horloge de la base (LOCALTIMESTAMP), commune à toutes les instances.
+ * Les méthodes doivent être appelées dans la transaction de l'opération métier appelante.
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingService {
+
+    public static final Duration HOLD_DURATION = Duration.ofMinutes(15);
+
+    private static final String STATUS_HOLD = "HOLD";
+    private static final String STATUS_CONFIRMED = "CONFIRMED";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Pose un HOLD temporaire sur le véhicule et, le cas échéant, sur le chauffeur de la location.
+     * Les réservations existantes de la location (upsert d'un panier PENDING) sont libérées au préalable.
+     */
+    public Mono<Void> hold(RentalEntity rental) {
+        return release(rental.getId())
+            .then(reserve(rental, STATUS_HOLD, HOLD_DURATION));
+    }
+
+    /**
+     * Confirme les créneaux d'une location (paiement du seuil de réservation).
+     * Si le HOLD a expiré entre-temps, le créneau est repris s'il est toujours libre, sinon l'opération échoue.
+     */
+    public Mono<Void> confirm(RentalEntity rental) {
+        long expected = rental.getDriverId() != null ? 2 : 1;
+        return databaseClient.sql("""
+                UPDATE resource_reservations SET status = :confirmed, expires_at = NULL
+                WHERE rental_id = :rentalId
+                AND (status = :confirmed OR expires_at > LOCALTIMESTAMP)
+            """)
+            .bind("confirmed", STATUS_CONFIRMED)
+            .bind("rentalId", rental.getId())
+            .fetch().rowsUpdated()
+            .flatMap(updated -> updated >= expected
+                ? Mono.<Void>empty()
+                : release(rental.getId()).then(reserve(rental, STATUS_CONFIRMED, null)));
+    }
+
+    /**
+     * Libère tous les créneaux réservés par une location (annulation, expiration).
+     */
+    public Mono<Void> release(UUID rentalId) {
+        return databaseClient.sql("DELETE FROM resource_reservations WHERE rental_id = :rentalId")
+            .bind("rentalId", rentalId)
+            .fetch().rowsUpdated()
+            .then();
+    }
+
+    private Mono<Void> reserve(RentalEntity rental, String status, Duration hold) {
+        if (rental.getStartDate() == null || rental.getEndDate() == null || !rental.getEndDate().isAfter(rental.getStartDate())) {
+            return Mono.error(new RuntimeException("La date de fin doit être postérieure à la date de début."));
+        }
+        Mono<Void> vehicle = reserveResource(rental, ResourceType.VEHICLE, rental.getVehicleId(), status, hold,
+            "Ce véhicule est déjà réservé sur cette période.");
+        Mono<Void> driver = rental.getDriverId() != null
+            ? reserveResource(rental, ResourceType.DRIVER, rental.getDriverId(), status, hold,
+                "Ce chauffeur est déjà réservé sur cette période.")
+            : Mono.empty();
+        return vehicle.then(driver);
+    }
+
+    /**
+     * ON CONFLICT DO NOTHING s'applique aussi à la contrainte d'exclusion : aucune ligne renvoyée
+     * signifie que le créneau est déjà pris, sans avorter la transaction en cours.
+     */
+    private Mono<Void> reserveResource(RentalEntity rental, ResourceType type, UUID resourceId,
+                                       String status, Duration hold, String conflictMessage) {
+        Mono<Long> purgeExpired = databaseClient.sql("""
+                DELETE FROM resource_reservations
+                WHERE resource_type = :type AND resource_id = :resourceId
+                AND status = :hold AND expires_at <= LOCALTIMESTAMP
+            """)
+            .bind("type", type.name())
+            .bind("resourceId", resourceId)
+            .bind("hold", STATUS_HOLD)
+            .fetch().rowsUpdated();
+
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("""
+                INSERT INTO resource_reservations (id, rental_id, resource_type, resource_id, start_date, end_date, status, expires_at, created_at)
+                VALUES (:id, :rentalId, :type, :resourceId, :startDate, :endDate, :status,
+                        LOCALTIMESTAMP + make_interval(secs => :holdSeconds), LOCALTIMESTAMP)
+                ON CONFLICT DO NOTHING
+                RETURNING id
+            """)
+            .bind("id", UUID.randomUUID())
+            .bind("rentalId", rental.getId())
+            .bind("type", type.name())
+            .bind("resourceId", resourceId)
+            .bind("startDate", rental.getStartDate())
+            .bind("endDate", rental.getEndDate())
+            .bind("status", status);
+        insert = hold != null ? insert.bind("holdSeconds", (double) hold.toSeconds()) : insert.bindNull("holdSeconds", Double.class);
+
+        return purgeExpired
+            .then(insert.map((row, meta) -> row.get("id", UUID.class)).one())
+            .switchIfEmpty(Mono.error(new RuntimeException(conflictMessage)))
+            .then();
+    }
+}
@@ -0,0 +1,136 @@
+package com.project.apirental.modules.rental.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.audit.domain.AuditEntity;
+import com.project.apirental.modules.audit.repository.AuditRepository;
+import com.project.apirental.modules.notification.domain.NotificationTemplate;
+import com.project.apirental.modules.notification.services.NotificationService;
+import com.project.apirental.modules.outbox.domain.OutboxEventEntity;
+import com.project.apirental.modules.outbox.domain.OutboxEventType;
+import com.project.apirental.modules.outbox.services.OutboxHandler;
+import com.project.apirental.modules.rental.dto.PaymentReceivedPayload;
+import com.project.apirental.modules.rental.repository.RentalRepository;
+import com.project.apirental.modules.schedule.services.ScheduleService;
+import com.project.apirental.shared.dto.ScheduleRequestDTO;
+import com.project.apirental.shared.enums.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Effets de bord d'un paiement, appliqués par l'OutboxDispatcher après la validation du paiement :
+ * revenus de l'agence, blocage des plannings, notifications et audit.
+ * Tout est écrit dans la transaction de l'événement : un rejeu après échec ne double rien.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentSideEffectsHandler implements OutboxHandler {
+
+    // Statuts pour lesquels les ressources restent bloquées au planning
+    private static final Set<RentalStatus> SCHEDULED_STATUSES = Set.of(RentalStatus.RESERVED, RentalStatus.PAID, RentalStatus.ONGOING);
+
+    private final AgencyRepository agencyRepository;
+    private final RentalRepository rentalRepository;
+    private final ScheduleService scheduleService;
+    private final NotificationService notificationService;
+    private final AuditRepository auditRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public OutboxEventType type() {
+        return OutboxEventType.PAYMENT_RECEIVED;
+    }
+
+    @Override
+    public Mono<Void> handle(OutboxEventEntity event) {
+        return Mono.fromCallable(() -> objectMapper.readValue(event.getPayload(), PaymentReceivedPayload.class))
+            .onErrorMap(JsonProcessingException.class, e -> new RuntimeException("Événement de paiement illisible : " + e.getMessage()))
+            .flatMap(p -> updateRevenue(p)
+                .then(blockSchedule(p))
+                .then(notify(p))
+                .then(audit(p)));
+    }
+
+    private Mono<Void> updateRevenue(PaymentReceivedPayload p) {
+        return agencyRepository.addMonthlyRevenue(p.agencyId(), p.amount().doubleValue()).then();
+    }
+
+    // Blocage Planning (passage à RESERVED ou PAID pour la première fois)
+    // La location a pu être annulée depuis le paiement : son statut est relu, ligne verrouillée pour
+    // qu'une annulation concurrente attende ce commit et retire ensuite les plannings créés ici.
+    private Mono<Void> blockSchedule(PaymentReceivedPayload p) {
+        if (!isFirstConfirmation(p)) return Mono.empty();
+        ScheduleRequestDTO schedule = new ScheduleRequestDTO(
+            p.startDate(), p.endDate(), "RENTED", "Location #" + p.rentalId()
+        );
+        return rentalRepository.findByIdForUpdate(p.rentalId())
+            .filter(rental -> SCHEDULED_STATUSES.contains(rental.getStatus()))
+            .flatMap(rental -> Mono.when(
+                scheduleService.addUnavailability(p.agencyId(), ResourceType.VEHICLE, p.vehicleId(), schedule, p.rentalId()),
+                p.driverId() != null ? scheduleService.addUnavailability(p.agencyId(), ResourceType.DRIVER, p.driverId(), schedule, p.rentalId()) : Mono.empty()
+            ));
+    }
+
+    private Mono<Void> notify(PaymentReceivedPayload p) {
+        Mono<Void> notifyClient = (p.clientId() != null) ? notificationService.createNotification(
+            p.rentalId(), p.clientId(), NotificationResourceType.CLIENT, NotificationReason.PAYMENT_RECEIVED,
+            p.vehicleId(), p.driverId(),
+            NotificationTemplate.PAYMENT_RECEIVED_CLIENT, p.amount(), p.amountPaid(), p.totalAmount(), p.newStatus()
+        ).then() : Mono.empty();
+
+        Mono<Void> notifyAgency = notificationService.createNotification(
+            p.rentalId(), p.agencyId(), NotificationResourceType.AGENCY, NotificationReason.PAYMENT_RECEIVED,
+            p.vehicleId(), p.driverId(),
+            NotificationTemplate.PAYMENT_RECEIVED_AGENCY, p.amount(), p.rentalId()
+        ).then();
+
+        // Notification spécifique "Réservation Réussie" (Passage à RESERVED)
+        Mono<Void> notifyReservationSuccess = Mono.empty();
+        if (p.oldStatus() == RentalStatus.PENDING && p.newStatus() == RentalStatus.RESERVED) {
+            notifyReservationSuccess = Mono.when(
+                p.clientId() != null ? notificationService.createNotification(
+                    p.rentalId(), p.clientId(), NotificationResourceType.CLIENT, NotificationReason.RESERVATION_CREATED,
+                    p.vehicleId(), p.driverId(),
+                    NotificationTemplate.RESERVATION_CONFIRMED_CLIENT, p.rentalId()
+                ) : Mono.empty(),
+                notificationService.createNotification(
+                    p.rentalId(), p.agencyId(), NotificationResourceType.AGENCY, NotificationReason.RESERVATION_CREATED,
+                    p.vehicleId(), p.driverId(),
+                    NotificationTemplate.RESERVATION_CONFIRMED_AGENCY, p.rentalId(), p.clientId()
+                ),
+                // Notif Chauffeur
+                p.driverId() != null ? notificationService.createNotification(
+                    p.rentalId(), p.driverId(), NotificationResourceType.DRIVER, NotificationReason.RESERVATION_CREATED,
+                    p.vehicleId(), p.driverId(),
+                    NotificationTemplate.RESERVATION_CONFIRMED_DRIVER, p.startDate(), p.endDate()
+                ) : Mono.empty()
+            );
+        }
+
+        return notifyClient.then(notifyAgency).then(notifyReservationSuccess);
+    }
+
+    private Mono<Void> audit(PaymentReceivedPayload p) {
+        AuditEntity audit = AuditEntity.builder()
+            .id(UUID.randomUUID())
+            .action("PAYMENT_RECEIVED")
+            .module("RENTAL")
+            .details("Paiement " + p.paymentId() + " de " + p.amount() + " sur la location " + p.rentalId()
+                + " : " + p.oldStatus() + " -> " + p.newStatus())
+            .timestamp(LocalDateTime.now())
+            .isNewRecord(true)
+            .build();
+        return auditRepository.save(audit).then();
+    }
+
+    private static boolean isFirstConfirmation(PaymentReceivedPayload p) {
+        return p.oldStatus() == RentalStatus.PENDING
+            && (p.newStatus() == RentalStatus.RESERVED || p.newStatus() == RentalStatus.PAID);
+    }
+}
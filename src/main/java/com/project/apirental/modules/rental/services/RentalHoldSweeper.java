@@ -0,0 +1,134 @@
+package com.project.apirental.modules.rental.services;
+
+import com.project.apirental.modules.rental.dto.SweeperStatsDTO;
+import com.project.apirental.shared.events.StatisticsChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Expire les réservations PENDING abandonnées (aucun paiement avant rental.pending.ttl-minutes).
+ * Chaque lot est une seule requête : sélection FOR UPDATE SKIP LOCKED, passage à EXPIRED et libération
+ * des créneaux réservés (resource_reservations). Plusieurs instances peuvent tourner en parallèle :
+ * une ligne verrouillée par l'une est ignorée par les autres, et un paiement concurrent garde la main.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RentalHoldSweeper {
+
+    @Value("${rental.pending.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${rental.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${rental.sweeper.max-batches:20}")
+    private int maxBatches;
+
+    private final DatabaseClient databaseClient;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong expiredTotal = new AtomicLong();
+    private final AtomicLong releasedTotal = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicReference<LocalDateTime> lastRunAt = new AtomicReference<>();
+    private final AtomicLong lastRunExpired = new AtomicLong();
+    private final AtomicLong lastRunDurationMs = new AtomicLong();
+
+    private record BatchResult(long expired, long released) {}
+
+    @Scheduled(initialDelayString = "${rental.sweeper.delay-ms:60000}", fixedDelayString = "${rental.sweeper.delay-ms:60000}")
+    public void scheduledSweep() {
+        // Pas de chevauchement si un passage précédent est encore en cours sur cette instance
+        if (!running.compareAndSet(false, true)) return;
+        sweep()
+            .doFinally(signal -> running.set(false))
+            .subscribe(
+                expired -> {
+                    if (expired > 0) log.info("Réservations PENDING expirées : {}", expired);
+                },
+                e -> log.error("Échec de l'expiration des réservations PENDING : {}", e.getMessage()));
+    }
+
+    /**
+     * Traite des lots successifs jusqu'à épuisement (lot incomplet) ou maxBatches.
+     * @return nombre de réservations expirées pendant ce passage
+     */
+    public Mono<Long> sweep() {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(ttlMinutes);
+        AtomicLong expiredThisRun = new AtomicLong();
+
+        return expireBatch(cutoff)
+            .expand(result -> result.expired() < batchSize ? Mono.empty() : expireBatch(cutoff))
+            .take(maxBatches)
+            .doOnNext(result -> {
+                expiredThisRun.addAndGet(result.expired());
+                expiredTotal.addAndGet(result.expired());
+                releasedTotal.addAndGet(result.released());
+            })
+            .then(Mono.fromCallable(() -> {
+                runs.incrementAndGet();
+                lastRunAt.set(LocalDateTime.now());
+                lastRunExpired.set(expiredThisRun.get());
+                lastRunDurationMs.set(System.currentTimeMillis() - startedAt);
+                return expiredThisRun.get();
+            }))
+            // Lots multi-agences, chacun validé séparément : tous les dashboards sont invalidés
+            .doOnNext(expired -> {
+                if (expired > 0) eventPublisher.publishEvent(new StatisticsChangedEvent(null));
+            })
+            .doOnError(e -> failures.incrementAndGet());
+    }
+
+    // Transition RentalTransition.EXPIRE, écrite en littéraux pour que l'index partiel
+    // idx_rentals_pending_updated reste utilisable quel que soit le plan préparé.
+    // Une réservation ayant reçu un acompte n'est jamais expirée : l'argent du client n'est pas perdu.
+    private Mono<BatchResult> expireBatch(LocalDateTime cutoff) {
+        return databaseClient.sql("""
+                WITH candidates AS (
+                    SELECT id FROM rentals
+                    WHERE status = 'PENDING' AND updated_at < :cutoff AND amount_paid = 0
+                    ORDER BY updated_at
+                    LIMIT :batchSize
+                    FOR UPDATE SKIP LOCKED
+                ), expired AS (
+                    UPDATE rentals r SET status = 'EXPIRED', updated_at = LOCALTIMESTAMP
+                    FROM candidates c
+                    WHERE r.id = c.id
+                    RETURNING r.id
+                ), released AS (
+                    DELETE FROM resource_reservations rr
+                    USING expired e
+                    WHERE rr.rental_id = e.id
+                    RETURNING rr.id
+                )
+                SELECT (SELECT COUNT(*) FROM expired) AS expired_count,
+                       (SELECT COUNT(*) FROM released) AS released_count
+            """)
+            .bind("cutoff", cutoff)
+            .bind("batchSize", batchSize)
+            .map((row, meta) -> new BatchResult(
+                row.get("expired_count", Long.class),
+                row.get("released_count", Long.class)))
+            .one();
+    }
+
+    public SweeperStatsDTO getStats() {
+        return new SweeperStatsDTO(runs.get(), expiredTotal.get(), releasedTotal.get(), failures.get(),
+            lastRunAt.get(), lastRunExpired.get(), lastRunDurationMs.get());
+    }
+}
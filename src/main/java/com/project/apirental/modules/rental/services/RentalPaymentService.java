@@ -1,39 +1,52 @@
 package com.project.apirental.modules.rental.services;
 
-import com.project.apirental.modules.agency.repository.AgencyRepository;
-import com.project.apirental.modules.notification.domain.NotificationTemplate;
-import com.project.apirental.modules.notification.services.NotificationService;
+import com.project.apirental.modules.outbox.domain.OutboxEventType;
+import com.project.apirental.modules.outbox.services.OutboxService;
 import com.project.apirental.modules.rental.domain.PaymentEntity;
 import com.project.apirental.modules.rental.domain.RentalEntity;
+import com.project.apirental.modules.rental.dto.PaymentReceivedPayload;
 import com.project.apirental.modules.rental.dto.PaymentRequest;
 import com.project.apirental.modules.rental.repository.PaymentRepository;
 import com.project.apirental.modules.rental.repository.RentalRepository;
-import com.project.apirental.modules.schedule.services.ScheduleService;
-import com.project.apirental.shared.dto.ScheduleRequestDTO;
-import com.project.apirental.shared.enums.*;
+import com.project.apirental.shared.enums.RentalStatus;
+import com.project.apirental.shared.events.StatisticsChangedEvent;
+import com.project.apirental.shared.utils.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class RentalPaymentService {
 
+    private static final List<RentalStatus> PAYABLE_STATUSES = List.of(RentalStatus.PENDING, RentalStatus.RESERVED);
+
     private final PaymentRepository paymentRepository;
     private final RentalRepository rentalRepository;
-    private final AgencyRepository agencyRepository;
-    private final ScheduleService scheduleService;
-    private final NotificationService notificationService;
-
+    private final BookingService bookingService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Enregistre un paiement sur une location PENDING ou RESERVED.
+     * La ligne est verrouillée pendant la transaction : deux paiements simultanés sont appliqués l'un
+     * après l'autre, chacun sur le montant déjà payé par l'autre.
+     */
     @Transactional
     public Mono<RentalEntity> processPayment(UUID rentalId, PaymentRequest request) {
-        return rentalRepository.findById(rentalId)
+        return rentalRepository.findByIdForUpdate(rentalId)
             .switchIfEmpty(Mono.error(new RuntimeException("Location non trouvée")))
+            .filter(rental -> rental.getStatus() != RentalStatus.EXPIRED)
+            .switchIfEmpty(Mono.error(new RuntimeException("Cette réservation a expiré. Veuillez relancer la réservation.")))
+            .filter(rental -> PAYABLE_STATUSES.contains(rental.getStatus()))
+            .switchIfEmpty(Mono.error(new RuntimeException("Cette location n'accepte plus de paiement.")))
             .flatMap(rental -> {
                 // 1. Enregistrement du paiement
                 PaymentEntity payment = PaymentEntity.builder()
@@ -42,14 +55,14 @@ public class RentalPaymentService {
                     .amount(request.amount())
                     .paymentMethod(request.method())
                     .transactionDate(LocalDateTime.now())
-                    .transactionRef("TXN-" + System.currentTimeMillis())
+                    // Référence unique (index uq_payments_transaction_ref), sans collision sous charge
+                    .transactionRef("TXN-" + UUID.randomUUID())
                     .isNewRecord(true)
                     .build();
 
                 return paymentRepository.save(payment).flatMap(savedPayment -> {
-                    // 2. Mise à jour du montant payé
+                    // 2. Nouveau montant payé (la ligne verrouillée ne peut pas changer d'ici le commit)
                     BigDecimal newAmountPaid = rental.getAmountPaid().add(request.amount());
-                    rental.setAmountPaid(newAmountPaid);
 
                     // 3. Logique des seuils (60% = RESERVED, 100% = PAID)
                     BigDecimal total = rental.getTotalAmount();
@@ -64,69 +77,28 @@ public class RentalPaymentService {
                         newStatus = RentalStatus.RESERVED;
                     }
 
-                    rental.setStatus(newStatus);
-
-                    // 4. Mise à jour revenus Agence
-                    Mono<Void> updateRevenue = agencyRepository.findById(rental.getAgencyId())
-                        .flatMap(agency -> {
-                            agency.setMonthlyRevenue(agency.getMonthlyRevenue() + request.amount().doubleValue());
-                            return agencyRepository.save(agency);
-                        }).then();
-
-                    // 5. Blocage Planning (Si passage à RESERVED ou PAID pour la première fois)
-                    Mono<Void> blockSchedule = Mono.empty();
-                    if (oldStatus == RentalStatus.PENDING && (newStatus == RentalStatus.RESERVED || newStatus == RentalStatus.PAID)) {
-                        ScheduleRequestDTO schedule = new ScheduleRequestDTO(
-                            rental.getStartDate(), rental.getEndDate(), "RENTED", "Location #" + rental.getId()
-                        );
-                        blockSchedule = Mono.when(
-                            scheduleService.addUnavailability(rental.getAgencyId(), ResourceType.VEHICLE, rental.getVehicleId(), schedule),
-                            scheduleService.addUnavailability(rental.getAgencyId(), ResourceType.DRIVER, rental.getDriverId(), schedule)
-                        );
-                    }
-
-                    // 6. Notifications (Utilisation des Templates)
-                    Mono<Void> notifyClient = (rental.getClientId() != null) ? notificationService.createNotification(
-                        rental.getId(), rental.getClientId(), NotificationResourceType.CLIENT, NotificationReason.PAYMENT_RECEIVED,
-                        rental.getVehicleId(), rental.getDriverId(),
-                        NotificationTemplate.PAYMENT_RECEIVED_CLIENT, request.amount(), newAmountPaid, total, newStatus
-                    ).then() : Mono.empty();
-
-                    Mono<Void> notifyAgency = notificationService.createNotification(
-                        rental.getId(), rental.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.PAYMENT_RECEIVED,
-                        rental.getVehicleId(), rental.getDriverId(),
-                        NotificationTemplate.PAYMENT_RECEIVED_AGENCY, request.amount(), rental.getId()
-                    ).then();
-
-                    // Notification spécifique "Réservation Réussie" (Passage à RESERVED)
-                    Mono<Void> notifyReservationSuccess = Mono.empty();
-                    if (oldStatus == RentalStatus.PENDING && newStatus == RentalStatus.RESERVED) {
-                        notifyReservationSuccess = Mono.when(
-                            notificationService.createNotification(
-                                rental.getId(), rental.getClientId(), NotificationResourceType.CLIENT, NotificationReason.RESERVATION_CREATED,
-                                rental.getVehicleId(), rental.getDriverId(),
-                                NotificationTemplate.RESERVATION_CONFIRMED_CLIENT, rental.getId()
-                            ),
-                            notificationService.createNotification(
-                                rental.getId(), rental.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.RESERVATION_CREATED,
-                                rental.getVehicleId(), rental.getDriverId(),
-                                NotificationTemplate.RESERVATION_CONFIRMED_AGENCY, rental.getId(), rental.getClientId()
-                            ),
-                            // Notif Chauffeur
-                            notificationService.createNotification(
-                                rental.getId(), rental.getDriverId(), NotificationResourceType.DRIVER, NotificationReason.RESERVATION_CREATED,
-                                rental.getVehicleId(), rental.getDriverId(),
-                                NotificationTemplate.RESERVATION_CONFIRMED_DRIVER, rental.getStartDate(), rental.getEndDate()
-                            )
-                        );
-                    }
-
-                    return updateRevenue
-                        .then(blockSchedule)
-                        .then(notifyClient)
-                        .then(notifyAgency)
-                        .then(notifyReservationSuccess)
-                        .then(rentalRepository.save(rental));
+                    // 4. Le HOLD est confirmé au premier passage à RESERVED / PAID :
+                    // si un autre client a pris le créneau, le paiement échoue et est annulé.
+                    boolean firstConfirmation = oldStatus == RentalStatus.PENDING
+                        && (newStatus == RentalStatus.RESERVED || newStatus == RentalStatus.PAID);
+                    Mono<Void> confirmBooking = firstConfirmation ? bookingService.confirm(rental) : Mono.empty();
+
+                    // 5. Revenus, plannings, notifications et audit : écrits dans l'outbox, dans cette transaction,
+                    // puis appliqués par l'OutboxDispatcher (cf. PaymentSideEffectsHandler)
+                    PaymentReceivedPayload payload = new PaymentReceivedPayload(
+                        rental.getId(), savedPayment.getId(), rental.getAgencyId(), rental.getClientId(),
+                        rental.getVehicleId(), rental.getDriverId(), rental.getStartDate(), rental.getEndDate(),
+                        request.amount(), newAmountPaid, total, oldStatus, newStatus
+                    );
+
+                    // updated_at est rafraîchi : un paiement repousse l'expiration d'une réservation PENDING
+                    return confirmBooking
+                        .then(rentalRepository.applyPayment(rentalId, request.amount(), newStatus))
+                        .switchIfEmpty(Mono.error(new RuntimeException("Cette location n'accepte plus de paiement.")))
+                        .flatMap(saved -> outboxService.enqueue(OutboxEventType.PAYMENT_RECEIVED, saved.getId(), payload)
+                            // Revenus et statuts des dashboards changent au commit (triggers des agrégats)
+                            .then(TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(new StatisticsChangedEvent(saved.getAgencyId()))))
+                            .thenReturn(saved));
                 });
             });
     }
@@ -7,24 +7,30 @@ import com.project.apirental.modules.driver.services.DriverService;
 import com.project.apirental.modules.notification.domain.NotificationTemplate;
 import com.project.apirental.modules.notification.services.NotificationService;
 import com.project.apirental.modules.organization.repository.OrganizationRepository;
-import com.project.apirental.modules.pricing.domain.PricingEntity;
-import com.project.apirental.modules.pricing.services.PricingService;
+import com.project.apirental.modules.pricing.dto.QuoteRequestDTO;
+import com.project.apirental.modules.pricing.services.PricingQuoteService;
 import com.project.apirental.modules.rental.domain.RentalEntity;
+import com.project.apirental.modules.rental.domain.RentalTransition;
 import com.project.apirental.modules.rental.dto.*;
 import com.project.apirental.modules.rental.repository.RentalRepository;
 import com.project.apirental.modules.schedule.services.ScheduleService;
 import com.project.apirental.modules.vehicle.repository.VehicleRepository;
 import com.project.apirental.modules.vehicle.services.VehicleService;
+import com.project.apirental.shared.dto.PageResponseDTO;
 import com.project.apirental.shared.dto.ScheduleRequestDTO;
 import com.project.apirental.shared.enums.*;
+import com.project.apirental.shared.events.AuditEvent;
+import com.project.apirental.shared.events.StatisticsChangedEvent;
+import com.project.apirental.shared.utils.KeysetPagination;
+import com.project.apirental.shared.utils.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -39,16 +45,18 @@ public class RentalService {
     private final VehicleRepository vehicleRepository;
     private final AgencyRepository agencyRepository;
     private final OrganizationRepository organizationRepository;
-    private final PricingService pricingService;
+    private final PricingQuoteService pricingQuoteService;
     private final ScheduleService scheduleService;
     private final NotificationService notificationService;
     private final AgencyMapper agencyMapper;
     private final VehicleService vehicleService;
     private final DriverService driverService;
+    private final BookingService bookingService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // CORRECTION : PENDING est remis ici pour que le client puisse voir son "panier" et le payer
     private static final List<RentalStatus> RESERVATION_ACTIVE_STATUSES = Arrays.asList(RentalStatus.PENDING, RentalStatus.RESERVED, RentalStatus.PAID);
-    private static final List<RentalStatus> RESERVATION_ALL_STATUSES = Arrays.asList(RentalStatus.PENDING, RentalStatus.RESERVED, RentalStatus.PAID, RentalStatus.CANCELLED);
+    private static final List<RentalStatus> RESERVATION_ALL_STATUSES = Arrays.asList(RentalStatus.PENDING, RentalStatus.RESERVED, RentalStatus.PAID, RentalStatus.CANCELLED, RentalStatus.EXPIRED);
     private static final List<RentalStatus> RENTAL_STATUSES = Arrays.asList(RentalStatus.ONGOING, RentalStatus.UNDER_REVIEW, RentalStatus.COMPLETED);
 
     public Mono<RentalDetailResponseDTO> getRentalDetails(UUID rentalId) {
@@ -86,26 +94,19 @@ public class RentalService {
                             ));
                     }
 
+                    QuoteRequestDTO quoteRequest = new QuoteRequestDTO(
+                        request.vehicleId(), request.driverId(), request.startDate(), request.endDate(), request.rentalType());
+
                     return Mono.zip(
-                        pricingService.getPricing(ResourceType.VEHICLE, request.vehicleId()),
-                        pricingService.getPricing(ResourceType.DRIVER, request.driverId()),
+                        pricingQuoteService.quote(vehicle.getOrganizationId(), vehicle.getAgencyId(), quoteRequest),
                         agencyRepository.findById(vehicle.getAgencyId())
                     ).flatMap(tuple -> {
-                        var vehiclePrice = tuple.getT1();
-                        var driverPrice = tuple.getT2();
-                        var agency = tuple.getT3();
-
-                        long duration = (request.rentalType() == RentalType.DAILY)
-                            ? Math.max(1, Duration.between(request.startDate(), request.endDate()).toDays())
-                            : Math.max(1, Duration.between(request.startDate(), request.endDate()).toHours());
-
-                        BigDecimal vPrice = (request.rentalType() == RentalType.DAILY) ? vehiclePrice.getPricePerDay() : vehiclePrice.getPricePerHour();
-                        BigDecimal dPrice = (request.rentalType() == RentalType.DAILY) ? driverPrice.getPricePerDay() : driverPrice.getPricePerHour();
+                        var quote = tuple.getT1();
+                        var agency = tuple.getT2();
 
-                        BigDecimal baseAmount = vPrice.add(dPrice).multiply(BigDecimal.valueOf(duration));
-                        BigDecimal commission = baseAmount.multiply(BigDecimal.valueOf(0.01));
-                        BigDecimal deposit = baseAmount.multiply(BigDecimal.valueOf(0.10));
-                        BigDecimal totalFinal = baseAmount.add(commission).add(deposit);
+                        BigDecimal commission = quote.commissionAmount();
+                        BigDecimal deposit = quote.depositAmount();
+                        BigDecimal totalFinal = quote.totalAmount();
 
                         // SOLUTION ANTI-DOUBLON : On cherche si une réservation PENDING existe déjà
                         return rentalRepository.findExistingPendingRental(clientId, request.vehicleId())
@@ -146,6 +147,9 @@ public class RentalService {
                                     .build();
                                 return rentalRepository.save(newRental);
                             }))
+                            // Pose (ou déplace) le HOLD temporaire : échoue si le créneau est déjà pris
+                            .flatMap(saved -> bookingService.hold(saved).thenReturn(saved))
+                            .flatMap(saved -> statisticsChanged(saved).thenReturn(saved))
                             .map(saved -> new RentalInitResponse(
                                 true,
                                 String.format(NotificationTemplate.RESERVATION_INIT_CLIENT.getTemplate(), totalFinal.multiply(BigDecimal.valueOf(0.6))),
@@ -162,27 +166,16 @@ public class RentalService {
             .filter(v -> v.getAgencyId().equals(agencyId))
             .switchIfEmpty(Mono.error(new RuntimeException("Véhicule non trouvé ou n'appartient pas à cette agence")))
             .flatMap(vehicle -> Mono.zip(
-                pricingService.getPricing(ResourceType.VEHICLE, request.vehicleId()),
-                request.driverId() != null ? pricingService.getPricing(ResourceType.DRIVER, request.driverId()) : Mono.just(new PricingEntity()),
+                pricingQuoteService.quote(vehicle.getOrganizationId(), agencyId, new QuoteRequestDTO(
+                    request.vehicleId(), request.driverId(), request.startDate(), request.endDate(), request.rentalType())),
                 agencyRepository.findById(agencyId)
             ).flatMap(tuple -> {
-                var vehiclePrice = tuple.getT1();
-                var driverPrice = tuple.getT2();
-                var agency = tuple.getT3();
+                var quote = tuple.getT1();
+                var agency = tuple.getT2();
 
-                long duration = (request.rentalType() == RentalType.DAILY)
-                    ? Math.max(1, Duration.between(request.startDate(), request.endDate()).toDays())
-                    : Math.max(1, Duration.between(request.startDate(), request.endDate()).toHours());
-
-                BigDecimal vPrice = (request.rentalType() == RentalType.DAILY) ? vehiclePrice.getPricePerDay() : vehiclePrice.getPricePerHour();
-                BigDecimal dPrice = (request.driverId() != null)
-                    ? ((request.rentalType() == RentalType.DAILY) ? driverPrice.getPricePerDay() : driverPrice.getPricePerHour())
-                    : BigDecimal.ZERO;
-
-                BigDecimal baseAmount = vPrice.add(dPrice).multiply(BigDecimal.valueOf(duration));
-                BigDecimal commission = baseAmount.multiply(BigDecimal.valueOf(0.01));
-                BigDecimal deposit = baseAmount.multiply(BigDecimal.valueOf(0.10));
-                BigDecimal totalFinal = baseAmount.add(commission).add(deposit);
+                BigDecimal commission = quote.commissionAmount();
+                BigDecimal deposit = quote.depositAmount();
+                BigDecimal totalFinal = quote.totalAmount();
 
                 RentalEntity rental = RentalEntity.builder()
                     .id(UUID.randomUUID())
@@ -207,6 +200,8 @@ public class RentalService {
                     .build();
 
                 return rentalRepository.save(rental)
+                    .flatMap(saved -> bookingService.hold(saved).thenReturn(saved))
+                    .flatMap(saved -> statisticsChanged(saved).thenReturn(saved))
                     .map(saved -> new RentalInitResponse(
                         true, "Location agence créée. Veuillez procéder à l'encaissement.",
                         saved.getId(), totalFinal, deposit, commission, agencyMapper.toDto(agency)
@@ -214,104 +209,97 @@ public class RentalService {
             }));
     }
 
+    /**
+     * Applique une transition de la machine à états en un seul UPDATE conditionnel :
+     * la ligne n'est modifiée que si son statut courant fait partie des statuts de départ.
+     * Aucune ligne retournée = location introuvable ou statut incompatible.
+     */
+    private Mono<RentalEntity> transition(UUID rentalId, RentalTransition transition) {
+        return rentalRepository.applyTransition(rentalId, transition.getFrom(), transition.getTo())
+            .switchIfEmpty(Mono.error(new RuntimeException(transition.getRejectionMessage())))
+            .doOnSuccess(r -> eventPublisher.publishEvent(new AuditEvent("RENTAL_" + transition.name(), "RENTAL",
+                "Location " + r.getId() + " : " + transition.getFrom() + " -> " + transition.getTo())))
+            .flatMap(r -> statisticsChanged(r).thenReturn(r));
+    }
+
+    // Invalide les dashboards de l'agence une fois la transaction validée
+    private Mono<Void> statisticsChanged(RentalEntity rental) {
+        return TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(new StatisticsChangedEvent(rental.getAgencyId())));
+    }
+
     @Transactional
     public Mono<RentalEntity> startRental(UUID rentalId) {
-        return rentalRepository.findById(rentalId)
-            .filter(r -> r.getStatus() == RentalStatus.PAID)
-            .switchIfEmpty(Mono.error(new RuntimeException("La location doit être entièrement payée (PAID) pour démarrer.")))
-            .flatMap(rental -> {
-                rental.setStatus(RentalStatus.ONGOING);
-                rental.setUpdatedAt(LocalDateTime.now());
-                return rentalRepository.save(rental)
-                    .flatMap(saved -> Mono.when(
-                        saved.getClientId() != null ? notificationService.createNotification(
-                            saved.getId(), saved.getClientId(), NotificationResourceType.CLIENT, NotificationReason.LOCATION_START,
-                            saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_START_CLIENT
-                        ) : Mono.empty(),
-                        notificationService.createNotification(
-                            saved.getId(), saved.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.LOCATION_START,
-                            saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_START_AGENCY
-                        )
-                    ).thenReturn(saved));
-            });
+        return transition(rentalId, RentalTransition.START)
+            .flatMap(saved -> Mono.when(
+                saved.getClientId() != null ? notificationService.createNotification(
+                    saved.getId(), saved.getClientId(), NotificationResourceType.CLIENT, NotificationReason.LOCATION_START,
+                    saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_START_CLIENT
+                ) : Mono.empty(),
+                notificationService.createNotification(
+                    saved.getId(), saved.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.LOCATION_START,
+                    saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_START_AGENCY
+                )
+            ).thenReturn(saved));
     }
 
     @Transactional
     public Mono<RentalEntity> signalEndRental(UUID rentalId) {
-        return rentalRepository.findById(rentalId)
-            .filter(r -> r.getStatus() == RentalStatus.ONGOING)
-            .flatMap(rental -> {
-                rental.setStatus(RentalStatus.UNDER_REVIEW);
-                rental.setUpdatedAt(LocalDateTime.now());
-                return rentalRepository.save(rental)
-                    .flatMap(saved -> notificationService.createNotification(
-                        saved.getId(), saved.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.LOCATION_END_SIGNAL,
-                        saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_END_SIGNAL_AGENCY
-                    ).thenReturn(saved));
-            });
+        return transition(rentalId, RentalTransition.SIGNAL_END)
+            .flatMap(saved -> notificationService.createNotification(
+                saved.getId(), saved.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.LOCATION_END_SIGNAL,
+                saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_END_SIGNAL_AGENCY
+            ).thenReturn(saved));
     }
 
     @Transactional
     public Mono<RentalEntity> validateReturn(UUID rentalId) {
-        return rentalRepository.findById(rentalId)
-            .filter(r -> r.getStatus() == RentalStatus.UNDER_REVIEW)
-            .flatMap(rental -> {
-                rental.setStatus(RentalStatus.COMPLETED);
-                rental.setUpdatedAt(LocalDateTime.now());
-
-                LocalDateTime maintenanceEnd = rental.getEndDate().plusHours(24);
+        return transition(rentalId, RentalTransition.VALIDATE_RETURN)
+            .flatMap(saved -> {
+                LocalDateTime maintenanceEnd = saved.getEndDate().plusHours(24);
                 ScheduleRequestDTO schedule = new ScheduleRequestDTO(
-                    rental.getEndDate(), maintenanceEnd, "MAINTENANCE", "Révision post-location"
+                    saved.getEndDate(), maintenanceEnd, "MAINTENANCE", "Révision post-location"
                 );
 
-                return Mono.when(
-                    scheduleService.addUnavailability(rental.getAgencyId(), ResourceType.VEHICLE, rental.getVehicleId(), schedule),
-                    rental.getDriverId() != null ? scheduleService.addUnavailability(rental.getAgencyId(), ResourceType.DRIVER, rental.getDriverId(), schedule) : Mono.empty()
-                ).then(rentalRepository.save(rental))
-                 .flatMap(saved -> Mono.when(
-                     saved.getClientId() != null ? notificationService.createNotification(
-                         saved.getId(), saved.getClientId(), NotificationResourceType.CLIENT, NotificationReason.LOCATION_END,
-                         saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_END_VALIDATED_CLIENT
-                     ) : Mono.empty(),
-                     notificationService.createNotification(
-                         saved.getId(), saved.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.LOCATION_END,
-                         saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_END_VALIDATED_AGENCY
-                     )
-                 ).thenReturn(saved));
+                // Le blocage RENTED est remplacé par la révision post-location
+                return scheduleService.removeScheduleForRental(saved.getId()).then(Mono.when(
+                    scheduleService.addUnavailability(saved.getAgencyId(), ResourceType.VEHICLE, saved.getVehicleId(), schedule, saved.getId()),
+                    saved.getDriverId() != null ? scheduleService.addUnavailability(saved.getAgencyId(), ResourceType.DRIVER, saved.getDriverId(), schedule, saved.getId()) : Mono.empty()
+                )).then(Mono.when(
+                    saved.getClientId() != null ? notificationService.createNotification(
+                        saved.getId(), saved.getClientId(), NotificationResourceType.CLIENT, NotificationReason.LOCATION_END,
+                        saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_END_VALIDATED_CLIENT
+                    ) : Mono.empty(),
+                    notificationService.createNotification(
+                        saved.getId(), saved.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.LOCATION_END,
+                        saved.getVehicleId(), saved.getDriverId(), NotificationTemplate.LOCATION_END_VALIDATED_AGENCY
+                    )
+                )).thenReturn(saved);
             });
     }
 
     @Transactional
     public Mono<RentalEntity> cancelRental(UUID rentalId) {
-        return rentalRepository.findById(rentalId)
-            .filter(r -> r.getStatus() == RentalStatus.RESERVED || r.getStatus() == RentalStatus.PAID || r.getStatus() == RentalStatus.PENDING)
-            .switchIfEmpty(Mono.error(new RuntimeException("Impossible d'annuler cette réservation.")))
-            .flatMap(rental -> {
-                BigDecimal amountPaid = rental.getAmountPaid();
+        return transition(rentalId, RentalTransition.CANCEL)
+            .flatMap(saved -> {
+                BigDecimal amountPaid = saved.getAmountPaid();
                 BigDecimal penalty = amountPaid.multiply(BigDecimal.valueOf(0.05));
                 BigDecimal refundAmount = amountPaid.subtract(penalty);
 
-                rental.setStatus(RentalStatus.CANCELLED);
-                rental.setUpdatedAt(LocalDateTime.now());
-
-                Mono<Void> freeSchedule = scheduleService.removeScheduleForRental(rental.getVehicleId(), rental.getDriverId(), rental.getStartDate(), rental.getEndDate());
-
-                return rentalRepository.save(rental)
-                    .flatMap(saved -> freeSchedule
-                        .then(Mono.when(
-                            saved.getClientId() != null ? notificationService.createNotification(
-                                saved.getId(), saved.getClientId(), NotificationResourceType.CLIENT, NotificationReason.CANCELLATION,
-                                saved.getVehicleId(), saved.getDriverId(),
-                                NotificationTemplate.CANCELLATION_CLIENT, amountPaid, penalty, refundAmount
-                            ) : Mono.empty(),
-                            notificationService.createNotification(
-                                saved.getId(), saved.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.CANCELLATION,
-                                saved.getVehicleId(), saved.getDriverId(),
-                                NotificationTemplate.CANCELLATION_AGENCY, penalty
-                            )
-                        ))
-                        .thenReturn(saved)
-                    );
+                return bookingService.release(saved.getId())
+                    .then(scheduleService.removeScheduleForRental(saved.getId()))
+                    .then(Mono.when(
+                        saved.getClientId() != null ? notificationService.createNotification(
+                            saved.getId(), saved.getClientId(), NotificationResourceType.CLIENT, NotificationReason.CANCELLATION,
+                            saved.getVehicleId(), saved.getDriverId(),
+                            NotificationTemplate.CANCELLATION_CLIENT, amountPaid, penalty, refundAmount
+                        ) : Mono.empty(),
+                        notificationService.createNotification(
+                            saved.getId(), saved.getAgencyId(), NotificationResourceType.AGENCY, NotificationReason.CANCELLATION,
+                            saved.getVehicleId(), saved.getDriverId(),
+                            NotificationTemplate.CANCELLATION_AGENCY, penalty
+                        )
+                    ))
+                    .thenReturn(saved);
             });
     }
 
@@ -333,4 +321,42 @@ public class RentalService {
     public Flux<RentalEntity> getOrganizationRentals(UUID orgId) {
         return rentalRepository.findAllByOrganizationIdAndStatusIn(orgId, RENTAL_STATUSES);
     }
+
+    // =================================================================================
+    // LISTINGS PAGINÉS (curseur sur created_at, id)
+    // =================================================================================
+
+    public Mono<PageResponseDTO<RentalEntity>> getClientActiveReservationsPage(UUID clientId, String cursor, Integer size) {
+        return pageOf(cursor, size, (cursorDate, cursorId, limit) ->
+            rentalRepository.findPageByClientIdAndStatusIn(clientId, RESERVATION_ACTIVE_STATUSES, cursorDate, cursorId, limit));
+    }
+
+    public Mono<PageResponseDTO<RentalEntity>> getClientRentalsHistoryPage(UUID clientId, String cursor, Integer size) {
+        return pageOf(cursor, size, (cursorDate, cursorId, limit) ->
+            rentalRepository.findPageByClientIdAndStatusIn(clientId, RENTAL_STATUSES, cursorDate, cursorId, limit));
+    }
+
+    public Mono<PageResponseDTO<RentalEntity>> getAgencyReservationsPage(UUID agencyId, String cursor, Integer size) {
+        return pageOf(cursor, size, (cursorDate, cursorId, limit) ->
+            rentalRepository.findPageByAgencyIdAndStatusIn(agencyId, RESERVATION_ALL_STATUSES, cursorDate, cursorId, limit));
+    }
+
+    public Mono<PageResponseDTO<RentalEntity>> getAgencyRentalsPage(UUID agencyId, String cursor, Integer size) {
+        return pageOf(cursor, size, (cursorDate, cursorId, limit) ->
+            rentalRepository.findPageByAgencyIdAndStatusIn(agencyId, RENTAL_STATUSES, cursorDate, cursorId, limit));
+    }
+
+    public Mono<PageResponseDTO<RentalEntity>> getOrganizationReservationsPage(UUID orgId, String cursor, Integer size) {
+        return pageOf(cursor, size, (cursorDate, cursorId, limit) ->
+            rentalRepository.findPageByOrganizationIdAndStatusIn(orgId, RESERVATION_ALL_STATUSES, cursorDate, cursorId, limit));
+    }
+
+    public Mono<PageResponseDTO<RentalEntity>> getOrganizationRentalsPage(UUID orgId, String cursor, Integer size) {
+        return pageOf(cursor, size, (cursorDate, cursorId, limit) ->
+            rentalRepository.findPageByOrganizationIdAndStatusIn(orgId, RENTAL_STATUSES, cursorDate, cursorId, limit));
+    }
+
+    private Mono<PageResponseDTO<RentalEntity>> pageOf(String cursor, Integer size, KeysetPagination.PageQuery<RentalEntity> query) {
+        return KeysetPagination.fetch(cursor, size, query, RentalEntity::getCreatedAt, RentalEntity::getId);
+    }
 }
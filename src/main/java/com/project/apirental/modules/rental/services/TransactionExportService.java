@@ -0,0 +1,161 @@
+package com.project.apirental.modules.rental.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.apirental.shared.enums.ExportFormat;
+import io.r2dbc.spi.Row;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Exports comptables d'une organisation (grand livre, locations) lus en flux depuis la base.
+ * Les lignes sont tirées par lots de FETCH_SIZE (curseur côté serveur) au rythme de l'écriture
+ * de la réponse, puis encodées par groupes de ROW_GROUP_SIZE : la mémoire reste bornée à un groupe,
+ * quelle que soit la période exportée. La compression gzip est faite par le serveur (server.compression).
+ * - CSV : en-tête puis une ligne par enregistrement.
+ * - COLUMNAR : une ligne NDJSON par groupe, {"rows": n, "columns": {"col": [v1, v2, ...], ...}} ;
+ *   les noms de colonnes ne sont écrits qu'une fois par groupe et les valeurs d'une même colonne
+ *   sont contiguës, ce qui se compresse bien mieux que du JSON ligne à ligne.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+
+    private static final int FETCH_SIZE = 500;
+    private static final int ROW_GROUP_SIZE = 1_000;
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private static final List<String> LEDGER_COLUMNS = List.of(
+            "id", "type", "date", "amount", "reference", "status", "method", "description");
+    private static final List<Class<?>> LEDGER_TYPES = List.of(
+            UUID.class, String.class, LocalDateTime.class, BigDecimal.class, String.class, String.class, String.class, String.class);
+
+    private static final List<String> RENTAL_COLUMNS = List.of(
+            "id", "agency_id", "vehicle_id", "driver_id", "client_id", "client_name", "status", "rental_type",
+            "start_date", "end_date", "total_amount", "amount_paid", "commission_amount", "deposit_amount", "created_at");
+    private static final List<Class<?>> RENTAL_TYPES = List.of(
+            UUID.class, UUID.class, UUID.class, UUID.class, UUID.class, String.class, String.class, String.class,
+            LocalDateTime.class, LocalDateTime.class, BigDecimal.class, BigDecimal.class, BigDecimal.class, BigDecimal.class, LocalDateTime.class);
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Grand livre (revenus locatifs et coûts d'abonnement) sur [from, to[, par date croissante.
+     */
+    public Flux<String> exportOrganizationLedger(UUID orgId, LocalDate from, LocalDate to, ExportFormat format) {
+        String sql = "SELECT * FROM (" + TransactionService.ORGANIZATION_LEDGER_SQL + ") ledger"
+            + " WHERE date >= :from AND date < :to ORDER BY date, id";
+        return export(sql, orgId, from, to, LEDGER_COLUMNS, LEDGER_TYPES, format);
+    }
+
+    /**
+     * Locations créées sur [from, to[ dans les agences de l'organisation
+     * (index idx_rentals_agency_created_status).
+     */
+    public Flux<String> exportOrganizationRentals(UUID orgId, LocalDate from, LocalDate to, ExportFormat format) {
+        String sql = """
+                SELECT r.id, r.agency_id, r.vehicle_id, r.driver_id, r.client_id, r.client_name, r.status, r.rental_type,
+                       r.start_date, r.end_date, r.total_amount, r.amount_paid, r.commission_amount, r.deposit_amount, r.created_at
+                FROM rentals r
+                JOIN agencies a ON a.id = r.agency_id
+                WHERE a.organization_id = :orgId AND r.created_at >= :from AND r.created_at < :to
+                ORDER BY r.created_at, r.id
+            """;
+        return export(sql, orgId, from, to, RENTAL_COLUMNS, RENTAL_TYPES, format);
+    }
+
+    private Flux<String> export(String sql, UUID orgId, LocalDate from, LocalDate to,
+                                List<String> columns, List<Class<?>> types, ExportFormat format) {
+        if (!from.isBefore(to)) {
+            return Flux.error(new RuntimeException("La date de début doit précéder la date de fin."));
+        }
+        Flux<List<Object[]>> rowGroups = databaseClient.sql(sql)
+            // fetchSize : le driver lit le résultat par portions au lieu de le recevoir en entier
+            .filter((statement, next) -> next.execute(statement.fetchSize(FETCH_SIZE)))
+            .bind("orgId", orgId)
+            .bind("from", from.atStartOfDay())
+            .bind("to", to.atStartOfDay())
+            .map((row, meta) -> readRow(row, columns, types))
+            .all()
+            .buffer(ROW_GROUP_SIZE);
+
+        return format == ExportFormat.CSV
+            ? Flux.concat(Flux.just(csvLine(columns.toArray())), rowGroups.map(this::toCsv))
+            : rowGroups.map(group -> toColumnar(group, columns));
+    }
+
+    private static Object[] readRow(Row row, List<String> columns, List<Class<?>> types) {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row.get(columns.get(i), types.get(i));
+        }
+        return values;
+    }
+
+    // =================================================================================
+    // ENCODAGE
+    // =================================================================================
+
+    private String toCsv(List<Object[]> group) {
+        StringBuilder sb = new StringBuilder(group.size() * 128);
+        for (Object[] values : group) {
+            sb.append(csvLine(values));
+        }
+        return sb.toString();
+    }
+
+    private static String csvLine(Object[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(csvCell(values[i]));
+        }
+        return sb.append("\r\n").toString();
+    }
+
+    private static String csvCell(Object value) {
+        if (value == null) return "";
+        if (value instanceof BigDecimal amount) return amount.toPlainString();
+        String text = value.toString();
+        // Texte commençant par = + - @ tabulation ou retour chariot : préfixé pour ne pas être interprété
+        // comme formule par un tableur (les montants, BigDecimal, ne sont pas concernés)
+        if (value instanceof String && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private String toColumnar(List<Object[]> group, List<String> columns) {
+        Map<String, List<Object>> byColumn = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            List<Object> values = new ArrayList<>(group.size());
+            for (Object[] row : group) {
+                values.add(row[i]);
+            }
+            byColumn.put(columns.get(i), values);
+        }
+        Map<String, Object> rowGroup = new LinkedHashMap<>();
+        rowGroup.put("rows", group.size());
+        rowGroup.put("columns", byColumn);
+        try {
+            return objectMapper.writeValueAsString(rowGroup) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Erreur lors de l'encodage de l'export : " + e.getMessage());
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.project.apirental.modules.rental.services;
 
+import com.project.apirental.modules.rental.domain.PaymentEntity;
 import com.project.apirental.modules.rental.dto.TransactionDetailResponseDTO;
 import com.project.apirental.modules.rental.dto.TransactionResponseDTO;
 import com.project.apirental.modules.rental.repository.PaymentRepository;
 import com.project.apirental.modules.rental.repository.RentalRepository;
 import com.project.apirental.modules.subscription.repository.SubscriptionPlanRepository;
 import com.project.apirental.modules.subscription.repository.SubscriptionRepository;
+import com.project.apirental.shared.dto.PageResponseDTO;
+import com.project.apirental.shared.enums.PaymentMethod;
+import com.project.apirental.shared.utils.KeysetPagination;
+import io.r2dbc.spi.Row;
 import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.Comparator;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Service
@@ -22,6 +29,28 @@ public class TransactionService {
     private final SubscriptionRepository subscriptionRepository;
     private final SubscriptionPlanRepository planRepository;
     private final RentalRepository rentalRepository;
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Grand livre d'une organisation (paramètre :orgId) : revenus locatifs et coûts d'abonnement.
+     * Colonnes : id, type, amount, date, description, reference, status, method.
+     */
+    static final String ORGANIZATION_LEDGER_SQL = """
+            SELECT p.id, 'RENTAL_INCOME' AS type, p.amount, p.transaction_date AS date,
+                   'Revenu Location (Ref: ' || COALESCE(p.transaction_ref, '') || ')' AS description,
+                   p.transaction_ref AS reference, 'COMPLETED' AS status, p.payment_method AS method
+            FROM payments p
+            JOIN rentals r ON p.rental_id = r.id
+            JOIN agencies a ON r.agency_id = a.id
+            WHERE a.organization_id = :orgId
+            UNION ALL
+            SELECT s.id, 'SUBSCRIPTION_COST' AS type, -sp.price AS amount, s.start_date AS date,
+                   'Abonnement ' || sp.name AS description,
+                   'SUB-' || LEFT(s.id::text, 8) AS reference, s.status, NULL AS method
+            FROM subscriptions s
+            JOIN subscription_plans sp ON sp.name = s.plan_type
+            WHERE s.organization_id = :orgId
+        """;
 
     // Injection du RentalService pour récupérer les détails de la location liée au paiement
     private final RentalService rentalService;
@@ -105,39 +134,82 @@ public class TransactionService {
 
     /**
      * Transactions d'une Organisation (Revenus Locatifs - Coûts Abonnements)
-     * Fusionne les flux et trie par date décroissante.
+     * Fusion et tri par date décroissante faits en base (grand livre UNION ALL), sans lecture par ligne.
      */
     public Flux<TransactionResponseDTO> getOrganizationTransactions(UUID orgId) {
+        return databaseClient.sql("SELECT * FROM (" + ORGANIZATION_LEDGER_SQL + ") ledger ORDER BY date DESC, id DESC")
+            .bind("orgId", orgId)
+            .map((row, meta) -> toLedgerDto(row))
+            .all();
+    }
 
-        // 1. Flux des revenus locatifs (Positif)
-        Flux<TransactionResponseDTO> rentalIncomeFlux = paymentRepository.findAllRentalPaymentsByOrganizationId(orgId)
-            .map(payment -> new TransactionResponseDTO(
-                payment.getId(),
-                "RENTAL_INCOME",
-                payment.getAmount(),
-                "Revenu Location (Ref: " + payment.getTransactionRef() + ")",
-                payment.getTransactionDate(),
-                payment.getTransactionRef(),
-                "COMPLETED",
-                payment.getPaymentMethod()
-            ));
-
-        // 2. Flux des dépenses d'abonnement (Négatif ou Informatif)
-        Flux<TransactionResponseDTO> subscriptionExpenseFlux = subscriptionRepository.findAllByOrganizationIdOrderByStartDateDesc(orgId)
-            .flatMap(sub -> planRepository.findByName(sub.getPlanType())
-                .map(plan -> new TransactionResponseDTO(
-                    sub.getId(),
-                    "SUBSCRIPTION_COST",
-                    plan.getPrice().negate(), // On met en négatif pour indiquer une dépense
-                    "Abonnement " + plan.getName(),
-                    sub.getStartDate(),
-                    "SUB-" + sub.getId().toString().substring(0, 8),
-                    sub.getStatus(),
-                    null // Méthode de paiement non stockée dans l'historique sub pour l'instant
-                )));
+    // =================================================================================
+    // VERSIONS PAGINÉES (curseur sur date de transaction, id)
+    // =================================================================================
+
+    public Mono<PageResponseDTO<TransactionResponseDTO>> getClientTransactionsPage(UUID clientId, String cursor, Integer size) {
+        return KeysetPagination.fetch(cursor, size,
+                (cursorDate, cursorId, limit) -> paymentRepository.findPageByClientId(clientId, cursorDate, cursorId, limit),
+                PaymentEntity::getTransactionDate, PaymentEntity::getId)
+            .map(page -> page.map(payment -> toRentalPaymentDto(payment, "Paiement Location #")));
+    }
+
+    public Mono<PageResponseDTO<TransactionResponseDTO>> getAgencyTransactionsPage(UUID agencyId, String cursor, Integer size) {
+        return KeysetPagination.fetch(cursor, size,
+                (cursorDate, cursorId, limit) -> paymentRepository.findPageByAgencyId(agencyId, cursorDate, cursorId, limit),
+                PaymentEntity::getTransactionDate, PaymentEntity::getId)
+            .map(page -> page.map(payment -> toRentalPaymentDto(payment, "Revenu Location #")));
+    }
+
+    /**
+     * Grand livre paginé d'une organisation : revenus locatifs et coûts d'abonnement
+     * sont fusionnés et triés côté base (UNION ALL) au lieu d'être chargés puis triés en mémoire.
+     */
+    public Mono<PageResponseDTO<TransactionResponseDTO>> getOrganizationTransactionsPage(UUID orgId, String cursor, Integer size) {
+        return KeysetPagination.fetch(cursor, size,
+                (cursorDate, cursorId, limit) -> findOrganizationLedgerPage(orgId, cursorDate, cursorId, limit),
+                TransactionResponseDTO::date, TransactionResponseDTO::id);
+    }
+
+    private Flux<TransactionResponseDTO> findOrganizationLedgerPage(UUID orgId, LocalDateTime cursorDate, UUID cursorId, int limit) {
+        String sql = "SELECT * FROM (" + ORGANIZATION_LEDGER_SQL + ") ledger"
+            + (cursorDate != null ? " WHERE (date, id) < (:cursorDate, :cursorId)" : "")
+            + " ORDER BY date DESC, id DESC LIMIT :limit";
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+            .bind("orgId", orgId)
+            .bind("limit", limit);
+        if (cursorDate != null) {
+            spec = spec.bind("cursorDate", cursorDate).bind("cursorId", cursorId);
+        }
+
+        return spec.map((row, meta) -> toLedgerDto(row)).all();
+    }
+
+    private TransactionResponseDTO toLedgerDto(Row row) {
+        String method = row.get("method", String.class);
+        return new TransactionResponseDTO(
+            row.get("id", UUID.class),
+            row.get("type", String.class),
+            row.get("amount", BigDecimal.class),
+            row.get("description", String.class),
+            row.get("date", LocalDateTime.class),
+            row.get("reference", String.class),
+            row.get("status", String.class),
+            method != null ? PaymentMethod.valueOf(method) : null
+        );
+    }
 
-        // 3. Fusion et Tri
-        return Flux.merge(rentalIncomeFlux, subscriptionExpenseFlux)
-            .sort(Comparator.comparing(TransactionResponseDTO::date).reversed());
+    private TransactionResponseDTO toRentalPaymentDto(PaymentEntity payment, String label) {
+        return new TransactionResponseDTO(
+            payment.getId(),
+            "RENTAL_PAYMENT",
+            payment.getAmount(),
+            label + payment.getRentalId().toString().substring(0, 8),
+            payment.getTransactionDate(),
+            payment.getTransactionRef(),
+            "COMPLETED",
+            payment.getPaymentMethod()
+        );
     }
 }
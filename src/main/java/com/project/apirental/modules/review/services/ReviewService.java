@@ -7,7 +7,10 @@ import com.project.apirental.modules.review.dto.ReviewResponseDTO;
 import com.project.apirental.modules.review.repository.ReviewRepository;
 import com.project.apirental.modules.vehicle.repository.VehicleRepository;
 import com.project.apirental.shared.enums.ResourceType;
+import com.project.apirental.shared.events.ResourceChangedEvent;
+import com.project.apirental.shared.utils.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
@@ -23,6 +26,7 @@ public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final VehicleRepository vehicleRepository;
     private final DriverRepository driverRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Mono<ReviewResponseDTO> addReview(ReviewRequestDTO request) {
@@ -39,7 +43,10 @@ public class ReviewService {
 
         return reviewRepository.save(review)
                 .flatMap(savedReview -> updateResourceRating(request.resourceType(), request.resourceId())
-                        .thenReturn(mapToDto(savedReview)));
+                        .thenReturn(mapToDto(savedReview)))
+                // Publié après validation : un lecteur concurrent ne remet pas l'état précédent en cache
+                .flatMap(dto -> TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(
+                        new ResourceChangedEvent(request.resourceType(), request.resourceId()))).thenReturn(dto));
     }
 
     public Flux<ReviewResponseDTO> getReviews(ResourceType type, UUID resourceId) {
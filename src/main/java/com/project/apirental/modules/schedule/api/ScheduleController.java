@@ -0,0 +1,33 @@
+package com.project.apirental.modules.schedule.api;
+
+import com.project.apirental.modules.schedule.dto.ResourceCalendarDTO;
+import com.project.apirental.modules.schedule.services.CalendarService;
+import com.project.apirental.shared.enums.ResourceType;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/schedules")
+@RequiredArgsConstructor
+@Tag(name = "Schedules", description = "Disponibilités des véhicules et chauffeurs")
+public class ScheduleController {
+
+    private final CalendarService calendarService;
+
+    // Route publique : plages occupées et créneaux réservables (ids, ou toutes les ressources d'une agence)
+    @Operation(summary = "Calendrier de disponibilité de véhicules ou chauffeurs (Client)")
+    @GetMapping("/calendar")
+    public Flux<ResourceCalendarDTO> getCalendar(
+            @RequestParam ResourceType resourceType,
+            @RequestParam(required = false) List<UUID> ids,
+            @RequestParam(required = false) UUID agencyId,
+            @RequestParam(required = false) Integer days) {
+        return calendarService.getCalendar(resourceType, ids, agencyId, days);
+    }
+}
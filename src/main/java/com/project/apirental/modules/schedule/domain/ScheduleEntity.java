@@ -27,6 +27,7 @@ public class ScheduleEntity implements Persistable<UUID> {
 
     private String status; // UNAVAILABLE, RENTED, MAINTENANCE, etc.
     private String reason; // Motif
+    private UUID rentalId; // Location à l'origine du planning (RENTED, MAINTENANCE post-location), sinon null
 
     private LocalDateTime createdAt;
 
@@ -0,0 +1,15 @@
+package com.project.apirental.modules.schedule.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Calendrier d'une ressource sur l'horizon demandé : plages occupées fusionnées et créneaux réservables
+public record ResourceCalendarDTO(
+    UUID resourceId,
+    UUID agencyId,
+    LocalDateTime from,
+    LocalDateTime to,
+    List<TimeSlotDTO> busy,
+    List<TimeSlotDTO> free
+) {}
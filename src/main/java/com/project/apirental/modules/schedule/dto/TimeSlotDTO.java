@@ -0,0 +1,11 @@
+package com.project.apirental.modules.schedule.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Plage horaire semi-ouverte [start, end).
+ */
+public record TimeSlotDTO(
+    LocalDateTime start,
+    LocalDateTime end
+) {}
@@ -5,9 +5,9 @@ import com.project.apirental.shared.enums.ResourceType;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 
 public interface ScheduleRepository extends R2dbcRepository<ScheduleEntity, UUID> {
@@ -20,7 +20,11 @@ public interface ScheduleRepository extends R2dbcRepository<ScheduleEntity, UUID
     @Query("SELECT * FROM schedules WHERE resource_type = :type AND resource_id = :id AND status IN ('UNAVAILABLE', 'RENTED', 'MAINTENANCE') AND (:start < end_date AND :end > start_date)")
     Flux<ScheduleEntity> findConflictingSchedules(ResourceType type, UUID id, LocalDateTime start, LocalDateTime end);
 
-    @org.springframework.data.r2dbc.repository.Modifying
-    @Query("DELETE FROM schedules WHERE resource_id = :resourceId AND start_date = :start AND end_date = :end")
-    Mono<Void> deleteByResourceIdAndDates(UUID resourceId, LocalDateTime start, LocalDateTime end);
+    // Plannings bloquants d'un ensemble de ressources sur une période (calendrier, hors index mémoire)
+    @Query("SELECT * FROM schedules WHERE resource_type = :type AND resource_id IN (:ids) AND status IN ('UNAVAILABLE', 'RENTED', 'MAINTENANCE') AND start_date < :end AND end_date > :start ORDER BY resource_id, start_date")
+    Flux<ScheduleEntity> findBlockingSchedules(ResourceType type, Collection<UUID> ids, LocalDateTime start, LocalDateTime end);
+
+    // Libère les plannings d'une location (index idx_schedules_rental) et renvoie les lignes supprimées
+    @Query("DELETE FROM schedules WHERE rental_id = :rentalId RETURNING *")
+    Flux<ScheduleEntity> deleteAllByRentalId(UUID rentalId);
 }
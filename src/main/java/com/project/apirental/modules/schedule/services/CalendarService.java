@@ -0,0 +1,152 @@
+package com.project.apirental.modules.schedule.services;
+
+import com.project.apirental.modules.agency.domain.AgencyEntity;
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.schedule.dto.ResourceCalendarDTO;
+import com.project.apirental.modules.schedule.dto.TimeSlotDTO;
+import com.project.apirental.modules.schedule.repository.ScheduleRepository;
+import com.project.apirental.shared.enums.ResourceType;
+import com.project.apirental.shared.utils.WorkingHours;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Calendrier de disponibilité de plusieurs véhicules / chauffeurs sur un horizon.
+ * Occupé = plannings bloquants (index mémoire ou base) + réservations actives (HOLD non expiré, CONFIRMED).
+ * Libre = complément de l'occupé, borné à maintenant et à maxAdvanceBookingDays, dont le début et la fin
+ * tombent pendant les horaires d'ouverture de l'agence et qui dure au moins minRentalHours.
+ * Une requête par source de données pour toutes les ressources, puis un passage par ressource sur les plages triées.
+ */
+@Service
+@RequiredArgsConstructor
+public class CalendarService {
+
+    public static final int DEFAULT_HORIZON_DAYS = 60;
+    public static final int MAX_HORIZON_DAYS = 366;
+    public static final int MAX_RESOURCES = 500;
+    private static final int DEFAULT_MIN_RENTAL_HOURS = 1;
+
+    private record Resource(UUID id, UUID agencyId) {}
+
+    private final DatabaseClient databaseClient;
+    private final AgencyRepository agencyRepository;
+    private final ScheduleRepository scheduleRepository;
+    private final ScheduleIntervalIndex scheduleIntervalIndex;
+
+    /**
+     * @param ids      ressources demandées (prioritaire sur agencyId)
+     * @param agencyId toutes les ressources de l'agence si ids est vide
+     */
+    public Flux<ResourceCalendarDTO> getCalendar(ResourceType type, List<UUID> ids, UUID agencyId, Integer days) {
+        if ((ids == null || ids.isEmpty()) && agencyId == null) {
+            return Flux.error(new RuntimeException("Veuillez préciser les ressources ou l'agence."));
+        }
+        if (ids != null && ids.size() > MAX_RESOURCES) {
+            return Flux.error(new RuntimeException("Trop de ressources demandées (maximum " + MAX_RESOURCES + ")."));
+        }
+        int horizonDays = days == null ? DEFAULT_HORIZON_DAYS : Math.max(1, Math.min(days, MAX_HORIZON_DAYS));
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime to = from.plusDays(horizonDays);
+
+        return findResources(type, ids, agencyId)
+            .collectList()
+            .filter(resources -> !resources.isEmpty())
+            .flatMapMany(resources -> {
+                List<UUID> resourceIds = resources.stream().map(Resource::id).toList();
+                List<UUID> agencyIds = resources.stream().map(Resource::agencyId).distinct().toList();
+
+                Mono<Map<UUID, AgencyEntity>> agenciesMono = agencyRepository.findAllById(agencyIds)
+                    .collectMap(AgencyEntity::getId);
+                Mono<Map<UUID, List<TimeSlotDTO>>> busyMono = findBusy(type, resourceIds, from, to);
+
+                return Mono.zip(agenciesMono, busyMono)
+                    .flatMapIterable(tuple -> resources.stream()
+                        .map(r -> buildCalendar(r, tuple.getT1().get(r.agencyId()),
+                            tuple.getT2().getOrDefault(r.id(), List.of()), from, to))
+                        .toList());
+            });
+    }
+
+    private ResourceCalendarDTO buildCalendar(Resource resource, AgencyEntity agency, List<TimeSlotDTO> busySlots,
+                                              LocalDateTime from, LocalDateTime to) {
+        List<TimeSlotDTO> sorted = new ArrayList<>(busySlots);
+        sorted.sort(Comparator.comparing(TimeSlotDTO::start));
+        List<TimeSlotDTO> busy = ScheduleIntervalIndex.mergeBusy(sorted);
+
+        LocalDateTime bookableUntil = to;
+        WorkingHours hours = WorkingHours.parse(null, true);
+        Duration minRental = Duration.ofHours(DEFAULT_MIN_RENTAL_HOURS);
+        if (agency != null) {
+            if (agency.getMaxAdvanceBookingDays() != null && agency.getMaxAdvanceBookingDays() > 0) {
+                LocalDateTime limit = from.plusDays(agency.getMaxAdvanceBookingDays());
+                if (limit.isBefore(bookableUntil)) bookableUntil = limit;
+            }
+            if (agency.getMinRentalHours() != null && agency.getMinRentalHours() > 0) {
+                minRental = Duration.ofHours(agency.getMinRentalHours());
+            }
+            hours = WorkingHours.parse(agency.getWorkingHours(), agency.getIs24Hours());
+        }
+
+        List<TimeSlotDTO> free = new ArrayList<>();
+        for (TimeSlotDTO gap : ScheduleIntervalIndex.gaps(busy, from, bookableUntil)) {
+            // Prise en charge et restitution pendant les heures d'ouverture
+            LocalDateTime start = hours.nextOpening(gap.start());
+            LocalDateTime end = hours.lastClosing(gap.end());
+            if (start == null || end == null) continue;
+            if (Duration.between(start, end).compareTo(minRental) >= 0) free.add(new TimeSlotDTO(start, end));
+        }
+        return new ResourceCalendarDTO(resource.id(), resource.agencyId(), from, to, busy, free);
+    }
+
+    private Flux<Resource> findResources(ResourceType type, List<UUID> ids, UUID agencyId) {
+        String table = type == ResourceType.VEHICLE ? "vehicles" : "drivers";
+        boolean byIds = ids != null && !ids.isEmpty();
+        DatabaseClient.GenericExecuteSpec spec = byIds
+            ? databaseClient.sql("SELECT id, agency_id FROM " + table + " WHERE id IN (:ids)").bind("ids", ids)
+            : databaseClient.sql("SELECT id, agency_id FROM " + table + " WHERE agency_id = :agencyId").bind("agencyId", agencyId);
+        return spec.map((row, meta) -> new Resource(row.get("id", UUID.class), row.get("agency_id", UUID.class))).all();
+    }
+
+    private Mono<Map<UUID, List<TimeSlotDTO>>> findBusy(ResourceType type, Collection<UUID> ids,
+                                                       LocalDateTime from, LocalDateTime to) {
+        Flux<Map.Entry<UUID, TimeSlotDTO>> schedules = scheduleIntervalIndex.covers(from)
+            ? Flux.fromIterable(ids).concatMapIterable(id -> scheduleIntervalIndex.schedulesOf(id, from, to).stream()
+                .filter(ScheduleIntervalIndex::isBlocking)
+                .map(s -> Map.entry(id, new TimeSlotDTO(s.getStartDate(), s.getEndDate())))
+                .toList())
+            : scheduleRepository.findBlockingSchedules(type, ids, from, to)
+                .map(s -> Map.entry(s.getResourceId(), new TimeSlotDTO(s.getStartDate(), s.getEndDate())));
+
+        Flux<Map.Entry<UUID, TimeSlotDTO>> reservations = databaseClient.sql("""
+                SELECT resource_id, start_date, end_date FROM resource_reservations
+                WHERE resource_type = :type AND resource_id IN (:ids)
+                AND start_date < :to AND end_date > :from
+                AND (status = 'CONFIRMED' OR expires_at > LOCALTIMESTAMP)
+            """)
+            .bind("type", type.name())
+            .bind("ids", ids)
+            .bind("from", from)
+            .bind("to", to)
+            .map((row, meta) -> Map.entry(row.get("resource_id", UUID.class),
+                new TimeSlotDTO(row.get("start_date", LocalDateTime.class), row.get("end_date", LocalDateTime.class))))
+            .all();
+
+        return Flux.concat(schedules, reservations)
+            .collect(Collectors.groupingBy(Map.Entry::getKey,
+                Collectors.mapping(Map.Entry::getValue, Collectors.toList())));
+    }
+}
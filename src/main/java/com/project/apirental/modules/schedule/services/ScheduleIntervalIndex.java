@@ -0,0 +1,301 @@
+package com.project.apirental.modules.schedule.services;
+
+import com.project.apirental.modules.schedule.domain.ScheduleEntity;
+import com.project.apirental.modules.schedule.dto.TimeSlotDTO;
+import com.project.apirental.shared.enums.ResourceType;
+import com.project.apirental.shared.utils.IntervalTree;
+import com.project.apirental.shared.utils.TransactionHooks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index mémoire des plannings (table schedules) : un arbre d'intervalles par (agence, type de ressource).
+ * - Chargé au démarrage (plannings non terminés, agence de chaque ressource lue dans vehicles / drivers).
+ * - Tenu à jour par les écritures de ScheduleService de cette instance, après commit de la transaction.
+ * - Reconstruit depuis la base toutes les schedule.index.resync-ms : les écritures des autres instances
+ *   y apparaissent au plus tard au passage suivant, et les plannings terminés en sont retirés.
+ * - Les appelants interrogent la base tant que l'index ne couvre pas la période demandée (covers()).
+ * <p>
+ * L'index est local à l'instance : il sert aux lectures de disponibilité, la contrainte d'exclusion
+ * de resource_reservations reste l'arbitre des réservations.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduleIntervalIndex {
+
+    // Statuts qui rendent une ressource indisponible (cf. ScheduleRepository.findConflictingSchedules)
+    public static final Set<String> BLOCKING_STATUSES = Set.of("UNAVAILABLE", "RENTED", "MAINTENANCE");
+
+    private record Key(UUID agencyId, ResourceType type) {}
+
+    private final DatabaseClient databaseClient;
+
+    // Remplacés en bloc à chaque reconstruction (sous le verrou d'écriture)
+    private volatile Map<Key, IntervalTree<ScheduleEntity>> trees = new ConcurrentHashMap<>();
+    // Ressource -> (agence, type) : permet de retrouver l'arbre d'une ressource
+    private volatile Map<UUID, Key> resourceKeys = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Écritures locales reçues pendant une reconstruction, rejouées sur le nouvel index (sous le verrou)
+    private List<Runnable> pendingWrites;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+    private volatile boolean ready = false;
+    // Les plannings terminés avant cette date ne sont plus dans l'index
+    private volatile LocalDateTime horizon = LocalDateTime.MAX;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        resync();
+    }
+
+    @Scheduled(initialDelayString = "${schedule.index.resync-ms:30000}", fixedDelayString = "${schedule.index.resync-ms:30000}")
+    public void resync() {
+        // Pas de reconstructions concurrentes sur cette instance
+        if (!rebuilding.compareAndSet(false, true)) return;
+        rebuild()
+            .doFinally(signal -> rebuilding.set(false))
+            .subscribe(
+                counts -> log.debug("Index des plannings : {} ressources, {} créneaux chargés", counts[0], counts[1]),
+                e -> log.error("Reconstruction de l'index des plannings impossible : {}", e.getMessage()));
+    }
+
+    /**
+     * Relit ressources et plannings non terminés dans un nouvel index, puis le substitue à l'actuel.
+     * Les écritures locales validées pendant la lecture sont rejouées sur le nouvel index.
+     */
+    private Mono<long[]> rebuild() {
+        Map<UUID, Key> freshKeys = new ConcurrentHashMap<>();
+        Map<Key, IntervalTree<ScheduleEntity>> freshTrees = new ConcurrentHashMap<>();
+        LocalDateTime startedAt = LocalDateTime.now();
+
+        Mono<Long> resources = databaseClient.sql("""
+                SELECT id, agency_id, 'VEHICLE' AS resource_type FROM vehicles WHERE agency_id IS NOT NULL
+                UNION ALL
+                SELECT id, agency_id, 'DRIVER' AS resource_type FROM drivers WHERE agency_id IS NOT NULL
+            """)
+            .map((row, meta) -> new Object[]{ row.get("id", UUID.class), row.get("agency_id", UUID.class), row.get("resource_type", String.class) })
+            .all()
+            .doOnNext(r -> freshKeys.putIfAbsent((UUID) r[0], new Key((UUID) r[1], ResourceType.valueOf((String) r[2]))))
+            .count();
+
+        Mono<Long> schedules = databaseClient.sql("""
+                SELECT * FROM schedules WHERE end_date > :now
+            """)
+            .bind("now", startedAt)
+            .map((row, meta) -> ScheduleEntity.builder()
+                .id(row.get("id", UUID.class))
+                .organizationId(row.get("organization_id", UUID.class))
+                .resourceType(ResourceType.valueOf(row.get("resource_type", String.class)))
+                .resourceId(row.get("resource_id", UUID.class))
+                .startDate(row.get("start_date", LocalDateTime.class))
+                .endDate(row.get("end_date", LocalDateTime.class))
+                .status(row.get("status", String.class))
+                .reason(row.get("reason", String.class))
+                .rentalId(row.get("rental_id", UUID.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .build())
+            .all()
+            .doOnNext(s -> insert(freshTrees, freshKeys, s))
+            .count();
+
+        // Le journal est ouvert avant les lectures : une écriture validée après ce point est rejouée
+        return Mono.fromRunnable(() -> withWriteLock(() -> pendingWrites = new ArrayList<>()))
+            // Les ressources d'abord : insert() a besoin de l'agence de chaque planning
+            .then(resources.zipWhen(r -> schedules))
+            .map(counts -> {
+                withWriteLock(() -> {
+                    trees = freshTrees;
+                    resourceKeys = freshKeys;
+                    pendingWrites.forEach(Runnable::run);
+                    pendingWrites = null;
+                    horizon = startedAt;
+                    ready = true;
+                });
+                return new long[]{ counts.getT1(), counts.getT2() };
+            })
+            .doOnError(e -> withWriteLock(() -> pendingWrites = null));
+    }
+
+    /**
+     * Vrai si l'index contient tous les plannings utiles à une recherche commençant à from
+     * (les plannings terminés avant la dernière reconstruction en ont été retirés).
+     */
+    public boolean covers(LocalDateTime from) {
+        return ready && !from.isBefore(horizon);
+    }
+
+    // =================================================================================
+    // ÉCRITURES (appelées par ScheduleService)
+    // =================================================================================
+
+    /**
+     * Indexe un planning enregistré, une fois la transaction courante validée.
+     * L'agence d'une ressource inconnue de l'index est résolue en base.
+     */
+    public Mono<Void> onSaved(ScheduleEntity schedule) {
+        return resolveKey(schedule.getResourceType(), schedule.getResourceId())
+            .flatMap(key -> TransactionHooks.afterCommit(() -> write(() -> {
+                resourceKeys.putIfAbsent(schedule.getResourceId(), key);
+                insert(trees, resourceKeys, schedule);
+            })));
+    }
+
+    /**
+     * Retire des plannings supprimés en base (cf. ScheduleRepository.deleteAllByRentalId).
+     */
+    public Mono<Void> onRemoved(Collection<ScheduleEntity> schedules) {
+        if (schedules.isEmpty()) return Mono.empty();
+        return TransactionHooks.afterCommit(() -> write(() -> schedules.forEach(s -> {
+            Key key = resourceKeys.get(s.getResourceId());
+            IntervalTree<ScheduleEntity> tree = key != null ? trees.get(key) : null;
+            if (tree != null) tree.remove(s.getStartDate(), s.getId());
+        })));
+    }
+
+    /**
+     * Déplace les plannings d'une ressource vers l'arbre de sa nouvelle agence.
+     */
+    public Mono<Void> onAgencyChanged(ResourceType type, UUID resourceId, UUID newAgencyId) {
+        return TransactionHooks.afterCommit(() -> write(() -> {
+            Key oldKey = resourceKeys.put(resourceId, new Key(newAgencyId, type));
+            if (oldKey == null || oldKey.agencyId().equals(newAgencyId)) return;
+            IntervalTree<ScheduleEntity> oldTree = trees.get(oldKey);
+            if (oldTree == null) return;
+            IntervalTree<ScheduleEntity> newTree = trees.computeIfAbsent(new Key(newAgencyId, type), k -> new IntervalTree<>());
+            for (ScheduleEntity s : oldTree.overlapping(LocalDateTime.MIN, LocalDateTime.MAX, e -> e.getResourceId().equals(resourceId))) {
+                oldTree.remove(s.getStartDate(), s.getId());
+                newTree.insert(s.getStartDate(), s.getEndDate(), s.getId(), s);
+            }
+        }));
+    }
+
+    // =================================================================================
+    // LECTURES
+    // =================================================================================
+
+    /**
+     * Ressources d'une agence occupées (statut bloquant) sur [from, to).
+     */
+    public Set<UUID> busyResources(UUID agencyId, ResourceType type, LocalDateTime from, LocalDateTime to) {
+        Set<UUID> busy = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            IntervalTree<ScheduleEntity> tree = trees.get(new Key(agencyId, type));
+            if (tree != null) {
+                tree.overlapping(from, to, ScheduleIntervalIndex::isBlocking).forEach(s -> busy.add(s.getResourceId()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return busy;
+    }
+
+    /**
+     * Plannings d'une ressource chevauchant [from, to), triés par date de début.
+     */
+    public List<ScheduleEntity> schedulesOf(UUID resourceId, LocalDateTime from, LocalDateTime to) {
+        lock.readLock().lock();
+        try {
+            Key key = resourceKeys.get(resourceId);
+            IntervalTree<ScheduleEntity> tree = key != null ? trees.get(key) : null;
+            return tree == null ? List.of() : tree.overlapping(from, to, s -> s.getResourceId().equals(resourceId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fusionne des plages triées par date de début en plages occupées disjointes (un seul passage).
+     */
+    public static List<TimeSlotDTO> mergeBusy(Collection<TimeSlotDTO> sortedSlots) {
+        List<TimeSlotDTO> merged = new ArrayList<>();
+        LocalDateTime curStart = null;
+        LocalDateTime curEnd = null;
+        for (TimeSlotDTO s : sortedSlots) {
+            if (curEnd != null && !s.start().isAfter(curEnd)) {
+                if (s.end().isAfter(curEnd)) curEnd = s.end();
+                continue;
+            }
+            if (curStart != null) merged.add(new TimeSlotDTO(curStart, curEnd));
+            curStart = s.start();
+            curEnd = s.end();
+        }
+        if (curStart != null) merged.add(new TimeSlotDTO(curStart, curEnd));
+        return merged;
+    }
+
+    /**
+     * Complément de plages occupées disjointes et triées dans [from, to).
+     */
+    public static List<TimeSlotDTO> gaps(List<TimeSlotDTO> busy, LocalDateTime from, LocalDateTime to) {
+        List<TimeSlotDTO> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (TimeSlotDTO b : busy) {
+            if (b.start().isAfter(cursor)) free.add(new TimeSlotDTO(cursor, b.start().isBefore(to) ? b.start() : to));
+            if (b.end().isAfter(cursor)) cursor = b.end();
+            if (!cursor.isBefore(to)) return free;
+        }
+        if (cursor.isBefore(to)) free.add(new TimeSlotDTO(cursor, to));
+        return free;
+    }
+
+    public static boolean isBlocking(ScheduleEntity schedule) {
+        return schedule.getStatus() != null && BLOCKING_STATUSES.contains(schedule.getStatus());
+    }
+
+    // --- Interne ---
+
+    private static void insert(Map<Key, IntervalTree<ScheduleEntity>> trees, Map<UUID, Key> resourceKeys, ScheduleEntity schedule) {
+        Key key = resourceKeys.get(schedule.getResourceId());
+        if (key == null) return; // Ressource supprimée : planning orphelin
+        trees.computeIfAbsent(key, k -> new IntervalTree<>())
+            .insert(schedule.getStartDate(), schedule.getEndDate(), schedule.getId(), schedule);
+    }
+
+    // Applique une écriture locale à l'index courant et la journalise si une reconstruction est en cours
+    private void write(Runnable write) {
+        withWriteLock(() -> {
+            write.run();
+            if (pendingWrites != null) pendingWrites.add(write);
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Mono<Key> resolveKey(ResourceType type, UUID resourceId) {
+        Key known = resourceKeys.get(resourceId);
+        if (known != null) return Mono.just(known);
+        String table = type == ResourceType.VEHICLE ? "vehicles" : "drivers";
+        return databaseClient.sql("SELECT agency_id FROM " + table + " WHERE id = :id")
+            .bind("id", resourceId)
+            .map((row, meta) -> row.get("agency_id", UUID.class))
+            .one()
+            .map(agencyId -> new Key(agencyId, type));
+    }
+}
@@ -4,22 +4,41 @@ import com.project.apirental.modules.schedule.domain.ScheduleEntity;
 import com.project.apirental.modules.schedule.repository.ScheduleRepository;
 import com.project.apirental.shared.dto.ScheduleRequestDTO;
 import com.project.apirental.shared.enums.ResourceType;
+import com.project.apirental.shared.events.ResourceChangedEvent;
+import com.project.apirental.shared.utils.TransactionHooks;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
     private final ScheduleRepository scheduleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScheduleIntervalIndex scheduleIntervalIndex;
 
     @Transactional
     public Mono<ScheduleEntity> addUnavailability(UUID orgId, ResourceType type, UUID resourceId, ScheduleRequestDTO request) {
+        return addUnavailability(orgId, type, resourceId, request, null);
+    }
+
+    /**
+     * Planning créé pour une location : rattaché par rental_id, il est libéré par removeScheduleForRental.
+     */
+    @Transactional
+    public Mono<ScheduleEntity> addUnavailability(UUID orgId, ResourceType type, UUID resourceId, ScheduleRequestDTO request, UUID rentalId) {
+        // Même règle que la contrainte chk_schedules_period, avec un message lisible
+        if (request.startDate() == null || request.endDate() == null || !request.endDate().isAfter(request.startDate())) {
+            return Mono.error(new RuntimeException("La date de fin doit être postérieure à la date de début."));
+        }
         ScheduleEntity schedule = ScheduleEntity.builder()
                 .id(UUID.randomUUID())
                 .organizationId(orgId)
@@ -29,26 +48,57 @@ public class ScheduleService {
                 .endDate(request.endDate())
                 .status(request.status().toUpperCase())
                 .reason(request.reason())
+                .rentalId(rentalId)
                 .createdAt(LocalDateTime.now())
                 .isNewRecord(true)
                 .build();
 
-        return scheduleRepository.save(schedule);
+        return scheduleRepository.save(schedule)
+                .flatMap(saved -> scheduleIntervalIndex.onSaved(saved).thenReturn(saved))
+                .flatMap(saved -> TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(new ResourceChangedEvent(type, resourceId)))
+                        .thenReturn(saved));
     }
 
     public Flux<ScheduleEntity> getResourceSchedule(ResourceType type, UUID resourceId) {
-        return scheduleRepository.findFutureSchedules(type, resourceId, LocalDateTime.now());
+        return Flux.defer(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (scheduleIntervalIndex.covers(now)) {
+                return Flux.fromIterable(scheduleIntervalIndex.schedulesOf(resourceId, now, LocalDateTime.MAX));
+            }
+            return scheduleRepository.findFutureSchedules(type, resourceId, now);
+        });
+    }
+
+    /**
+     * Ressources d'une agence indisponibles sur la période, servies par l'index mémoire.
+     * Vide si l'index ne couvre pas la période (pas encore chargé, début antérieur à sa dernière
+     * reconstruction) : l'appelant doit alors interroger la base.
+     */
+    public Optional<Set<UUID>> getBusyResources(UUID agencyId, ResourceType type, LocalDateTime start, LocalDateTime end) {
+        if (!scheduleIntervalIndex.covers(start)) return Optional.empty();
+        return Optional.of(scheduleIntervalIndex.busyResources(agencyId, type, start, end));
+    }
+
+    /**
+     * À appeler quand une ressource change d'agence, pour déplacer ses plannings dans l'index.
+     */
+    public Mono<Void> onResourceAgencyChanged(ResourceType type, UUID resourceId, UUID newAgencyId) {
+        return scheduleIntervalIndex.onAgencyChanged(type, resourceId, newAgencyId);
     }
 
     /**
-     * Supprime les entrées de planning correspondant à une période et une ressource.
-     * Utilisé lors de l'annulation d'une réservation.
+     * Supprime les plannings rattachés à une location, en une requête sur rental_id.
+     * Utilisé lors de l'annulation d'une réservation et de la validation du retour.
      */
     @Transactional
-    public Mono<Void> removeScheduleForRental(UUID vehicleId, UUID driverId, LocalDateTime start, LocalDateTime end) {
-        // Logique simplifiée : on supprime les schedules qui correspondent exactement aux dates
-        // Dans une implémentation réelle, on pourrait stocker le rentalId dans la table schedule pour une suppression précise
-        return scheduleRepository.deleteByResourceIdAndDates(vehicleId, start, end)
-                .then(driverId != null ? scheduleRepository.deleteByResourceIdAndDates(driverId, start, end) : Mono.empty());
+    public Mono<Void> removeScheduleForRental(UUID rentalId) {
+        return scheduleRepository.deleteAllByRentalId(rentalId)
+                .collectList()
+                .flatMap(removed -> scheduleIntervalIndex.onRemoved(removed)
+                        .then(TransactionHooks.afterCommit(() -> removed.stream()
+                                .map(s -> new ResourceChangedEvent(s.getResourceType(), s.getResourceId()))
+                                .distinct()
+                                .forEach(eventPublisher::publishEvent))))
+                .then();
     }
 }
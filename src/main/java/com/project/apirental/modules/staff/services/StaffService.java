@@ -109,11 +109,7 @@ public class StaffService {
     }
 
     private Mono<Void> updateAgencyStaffCounter(UUID agencyId, int increment) {
-        return agencyRepository.findById(Objects.requireNonNull(agencyId))
-                .flatMap(agency -> {
-                    agency.setTotalPersonnel(agency.getTotalPersonnel() + increment);
-                    return agencyRepository.save(agency);
-                }).then();
+        return agencyRepository.incrementPersonnel(Objects.requireNonNull(agencyId), increment).then();
     }
 
     private Mono<StaffResponseDTO> enrichStaff(UserEntity staff) {
@@ -3,6 +3,8 @@ package com.project.apirental.modules.statistics.api;
 import com.project.apirental.modules.statistics.dto.AgencyStatsDTO;
 import com.project.apirental.modules.statistics.dto.FullDashboardDTO;
 import com.project.apirental.modules.statistics.dto.OrgStatsDTO;
+import com.project.apirental.modules.statistics.services.DashboardCacheService;
+import com.project.apirental.modules.statistics.services.StatisticsRollupService;
 import com.project.apirental.modules.statistics.services.StatisticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,6 +27,8 @@ import java.util.UUID;
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final StatisticsRollupService statisticsRollupService;
+    private final DashboardCacheService dashboardCacheService;
 
     // =================================================================================
     // 1. DASHBOARDS (Optimisé pour l'affichage graphique Frontend)
@@ -39,7 +43,7 @@ public class StatisticsController {
             @Parameter(description = "Année cible (défaut: année en cours)") @RequestParam(required = false) Integer year) {
 
         int targetYear = (year != null) ? year : LocalDate.now().getYear();
-        return statisticsService.getAgencyDashboard(agencyId, targetYear)
+        return dashboardCacheService.getAgencyDashboard(agencyId, targetYear)
                 .map(ResponseEntity::ok);
     }
 
@@ -52,7 +56,7 @@ public class StatisticsController {
             @Parameter(description = "Année cible (défaut: année en cours)") @RequestParam(required = false) Integer year) {
 
         int targetYear = (year != null) ? year : LocalDate.now().getYear();
-        return statisticsService.getOrganizationDashboard(orgId, targetYear)
+        return dashboardCacheService.getOrganizationDashboard(orgId, targetYear)
                 .map(ResponseEntity::ok);
     }
 
@@ -86,4 +90,17 @@ public class StatisticsController {
         return statisticsService.getOrganizationStats(orgId, targetYear)
                 .map(ResponseEntity::ok);
     }
+
+    // =================================================================================
+    // 3. MAINTENANCE DES AGRÉGATS
+    // =================================================================================
+
+    @Operation(summary = "Recalculer les agrégats statistiques",
+               description = "Reconstruit les tables d'agrégats des dashboards depuis les locations, paiements et véhicules (backfill).")
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<ResponseEntity<Void>> rebuildRollups() {
+        return statisticsRollupService.rebuild()
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
 }
@@ -0,0 +1,104 @@
+package com.project.apirental.modules.statistics.services;
+
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.statistics.dto.FullDashboardDTO;
+import com.project.apirental.shared.events.StatisticsChangedEvent;
+import com.project.apirental.shared.utils.LruMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Dashboards agence / organisation mis en cache par (périmètre, année).
+ * - Coalescence : les requêtes simultanées sur une même clé partagent un seul calcul (Mono mis en cache).
+ * - Invalidation : StatisticsChangedEvent, publié après validation d'un paiement ou d'un changement
+ *   de statut de location ; le TTL (stats.dashboard.cache-ttl-seconds) couvre les écritures non notifiées
+ *   (statut des véhicules, recalcul des agrégats).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardCacheService {
+
+    private static final int MAX_ENTRIES = 2_000;
+
+    @Value("${stats.dashboard.cache-ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private final StatisticsService statisticsService;
+    private final AgencyRepository agencyRepository;
+
+    private enum Scope { AGENCY, ORGANIZATION }
+
+    private record Key(Scope scope, UUID id, int year) {}
+
+    private record Entry(Mono<FullDashboardDTO> dashboard, Instant expiresAt) {}
+
+    private final Map<Key, Entry> cache = Collections.synchronizedMap(new LruMap<>(MAX_ENTRIES));
+    // Une agence ne change pas d'organisation : évite de relire l'organisation à chaque invalidation
+    private final Map<UUID, UUID> agencyOrganizations = new ConcurrentHashMap<>();
+
+    public Mono<FullDashboardDTO> getAgencyDashboard(UUID agencyId, int year) {
+        return get(new Key(Scope.AGENCY, agencyId, year), () -> statisticsService.getAgencyDashboard(agencyId, year));
+    }
+
+    public Mono<FullDashboardDTO> getOrganizationDashboard(UUID orgId, int year) {
+        return get(new Key(Scope.ORGANIZATION, orgId, year), () -> statisticsService.getOrganizationDashboard(orgId, year));
+    }
+
+    private Mono<FullDashboardDTO> get(Key key, Supplier<Mono<FullDashboardDTO>> loader) {
+        return Mono.defer(() -> {
+            Instant now = Instant.now();
+            Entry entry;
+            synchronized (cache) {
+                entry = cache.get(key);
+                if (entry == null || !entry.expiresAt().isAfter(now)) {
+                    entry = new Entry(Mono.defer(loader).cache(), now.plusSeconds(ttlSeconds));
+                    cache.put(key, entry);
+                }
+            }
+            Entry current = entry;
+            // Un échec n'est pas conservé : la requête suivante relance le calcul
+            return current.dashboard().doOnError(e -> cache.remove(key, current));
+        });
+    }
+
+    @EventListener
+    public void onStatisticsChanged(StatisticsChangedEvent event) {
+        UUID agencyId = event.agencyId();
+        if (agencyId == null) {
+            cache.clear();
+            return;
+        }
+        evict(Scope.AGENCY, agencyId);
+
+        UUID orgId = agencyOrganizations.get(agencyId);
+        if (orgId != null) {
+            evict(Scope.ORGANIZATION, orgId);
+            return;
+        }
+        agencyRepository.findOrgIdByAgencyId(agencyId)
+            .subscribe(
+                id -> {
+                    agencyOrganizations.put(agencyId, id);
+                    evict(Scope.ORGANIZATION, id);
+                },
+                e -> log.warn("Invalidation du dashboard organisation de l'agence {} impossible : {}", agencyId, e.getMessage()));
+    }
+
+    private void evict(Scope scope, UUID id) {
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.scope() == scope && key.id().equals(id));
+        }
+    }
+}
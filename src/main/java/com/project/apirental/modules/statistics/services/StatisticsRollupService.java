@@ -0,0 +1,55 @@
+package com.project.apirental.modules.statistics.services;
+
+import com.project.apirental.shared.events.AuditEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recalcul complet des agrégats statistiques (agency_monthly_revenue, agency_monthly_rentals,
+ * agency_vehicle_status_counts) depuis les tables sources, via la fonction rebuild_agency_stats().
+ * Les triggers tiennent ces tables à jour au fil de l'eau ; le recalcul sert de backfill
+ * (restauration, import en masse hors triggers) et de réconciliation périodique optionnelle.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatisticsRollupService {
+
+    private final DatabaseClient databaseClient;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Une seule instruction : la fonction s'exécute dans sa propre transaction, verrous compris
+    public Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+                if (!running.compareAndSet(false, true)) {
+                    return Mono.error(new RuntimeException("Un recalcul des statistiques est déjà en cours."));
+                }
+                long startedAt = System.currentTimeMillis();
+                return databaseClient.sql("SELECT rebuild_agency_stats()")
+                    .then()
+                    .doOnSuccess(v -> {
+                        long duration = System.currentTimeMillis() - startedAt;
+                        log.info("Agrégats statistiques recalculés en {} ms", duration);
+                        eventPublisher.publishEvent(new AuditEvent("REBUILD_STATS", "STATISTICS", "Recalcul des agrégats en " + duration + " ms"));
+                    })
+                    .doFinally(signal -> running.set(false));
+            });
+    }
+
+    // Désactivé par défaut ("-") ; ex : stats.rollup.rebuild-cron=0 30 3 * * * pour une réconciliation nocturne
+    @Scheduled(cron = "${stats.rollup.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        rebuild().subscribe(
+            v -> {},
+            e -> log.error("Échec du recalcul des agrégats statistiques : {}", e.getMessage()));
+    }
+}
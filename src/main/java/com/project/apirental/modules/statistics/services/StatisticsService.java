@@ -1,13 +1,16 @@
 package com.project.apirental.modules.statistics.services;
 
+import com.project.apirental.modules.agency.domain.AgencyEntity;
 import com.project.apirental.modules.agency.repository.AgencyRepository;
 import com.project.apirental.modules.statistics.dto.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.*;
 
 @Service
@@ -18,12 +21,13 @@ public class StatisticsService {
     private final AgencyRepository agencyRepository;
 
     public Mono<FullDashboardDTO> getAgencyDashboard(UUID agencyId, int year) {
+        List<UUID> agencyIds = List.of(agencyId);
         return Mono.zip(
-            getGlobalStats(agencyId),
-            getRevenueEvolution(agencyId, year),
-            getRentalEvolution(agencyId, year),
-            getVehicleStatusDistribution(agencyId),
-            getRentalStatusDistribution(agencyId)
+            getGlobalStats("agency_id", agencyId, agencyIds),
+            getRevenueEvolution(agencyIds, year),
+            getRentalEvolution(agencyIds, year),
+            getVehicleStatusDistribution(agencyIds),
+            getRentalStatusDistribution(agencyIds)
         ).map(tuple -> new FullDashboardDTO(
             tuple.getT1(), tuple.getT2(), tuple.getT3(), tuple.getT4(), tuple.getT5(), List.of()
         ));
@@ -46,11 +50,11 @@ public class StatisticsService {
                 }
 
                 return Mono.zip(
-                    getGlobalStatsForOrg(orgId),
-                    getRevenueEvolutionForOrg(agencyIds, year),
-                    getRentalEvolutionForOrg(agencyIds, year),
-                    getVehicleStatusDistributionForOrg(agencyIds),
-                    getRentalStatusDistributionForOrg(agencyIds),
+                    getGlobalStats("organization_id", orgId, agencyIds),
+                    getRevenueEvolution(agencyIds, year),
+                    getRentalEvolution(agencyIds, year),
+                    getVehicleStatusDistribution(agencyIds),
+                    getRentalStatusDistribution(agencyIds),
                     getAgencyComparison(orgId)
                 ).map(tuple -> new FullDashboardDTO(
                     tuple.getT1(), tuple.getT2(), tuple.getT3(), tuple.getT4(), tuple.getT5(), tuple.getT6()
@@ -59,97 +63,36 @@ public class StatisticsService {
     }
 
     // ==========================================
-    // MÉTHODES POUR AGENCE UNIQUE
+    // DASHBOARDS (AGRÉGATS PAR AGENCE, cf. changeset 19)
     // ==========================================
-
-    private Mono<GlobalStatsDTO> getGlobalStats(UUID agencyId) {
-        String sql = """
-            SELECT
-                (SELECT COUNT(*) FROM vehicles WHERE agency_id = :id) as vehicles,
-                (SELECT COUNT(*) FROM drivers WHERE agency_id = :id) as drivers,
-                (SELECT COUNT(*) FROM users WHERE agency_id = :id AND role = 'STAFF') as staff,
-                (SELECT COUNT(*) FROM rentals WHERE agency_id = :id) as total_rentals,
-                (SELECT COUNT(*) FROM rentals WHERE agency_id = :id AND status = 'ONGOING') as active_rentals,
-                (SELECT COUNT(*) FROM rentals WHERE agency_id = :id AND status = 'RESERVED') as reservations,
-                (SELECT COALESCE(SUM(amount), 0) FROM payments p JOIN rentals r ON p.rental_id = r.id WHERE r.agency_id = :id) as total_rev,
-                (SELECT COALESCE(SUM(amount), 0) FROM payments p JOIN rentals r ON p.rental_id = r.id WHERE r.agency_id = :id AND EXTRACT(MONTH FROM p.transaction_date) = EXTRACT(MONTH FROM CURRENT_DATE)) as month_rev
-        """;
-
-        return databaseClient.sql(sql)
-            .bind("id", agencyId)
-            .map(row -> new GlobalStatsDTO(
-                1L,
-                row.get("vehicles", Long.class),
-                row.get("drivers", Long.class),
-                row.get("staff", Long.class),
-                row.get("total_rentals", Long.class),
-                row.get("active_rentals", Long.class),
-                row.get("reservations", Long.class),
-                row.get("total_rev", BigDecimal.class),
-                row.get("month_rev", BigDecimal.class)
-            )).one();
-    }
-
-    private Mono<TimeSeriesDataDTO> getRevenueEvolution(UUID agencyId, int year) {
-        String sql = """
-            SELECT TO_CHAR(transaction_date, 'Mon') as month, SUM(amount) as total
-            FROM payments p JOIN rentals r ON p.rental_id = r.id
-            WHERE r.agency_id = :id AND EXTRACT(YEAR FROM transaction_date) = :year
-            GROUP BY EXTRACT(MONTH FROM transaction_date), TO_CHAR(transaction_date, 'Mon')
-            ORDER BY EXTRACT(MONTH FROM transaction_date)
-        """;
-        return buildTimeSeries(sql, agencyId, year);
-    }
-
-    private Mono<TimeSeriesDataDTO> getRentalEvolution(UUID agencyId, int year) {
+    // Les compteurs de locations, de véhicules et les revenus sont lus dans les tables agency_monthly_revenue,
+    // agency_monthly_rentals et agency_vehicle_status_counts, tenues à jour par triggers : le coût d'un dashboard
+    // dépend du nombre d'agences et de mois, pas de l'historique. Une agence = une liste d'un seul identifiant.
+
+    /**
+     * @param scopeColumn colonne de rattachement des chauffeurs et du personnel ("agency_id" ou "organization_id")
+     */
+    private Mono<GlobalStatsDTO> getGlobalStats(String scopeColumn, UUID scopeId, List<UUID> agencyIds) {
         String sql = """
-            SELECT TO_CHAR(created_at, 'Mon') as month, COUNT(*) as total
-            FROM rentals
-            WHERE agency_id = :id AND EXTRACT(YEAR FROM created_at) = :year
-            GROUP BY EXTRACT(MONTH FROM created_at), TO_CHAR(created_at, 'Mon')
-            ORDER BY EXTRACT(MONTH FROM created_at)
-        """;
-        return buildTimeSeries(sql, agencyId, year);
-    }
-
-    private Mono<DistributionDataDTO> getVehicleStatusDistribution(UUID agencyId) {
-        return databaseClient.sql("SELECT statut, COUNT(*) as count FROM vehicles WHERE agency_id = :id GROUP BY statut")
-            .bind("id", agencyId)
-            .fetch().all()
-            .collectMap(row -> (String) row.get("statut"), row -> (Long) row.get("count"))
-            .map(DistributionDataDTO::new);
-    }
-
-    private Mono<DistributionDataDTO> getRentalStatusDistribution(UUID agencyId) {
-        return databaseClient.sql("SELECT status, COUNT(*) as count FROM rentals WHERE agency_id = :id GROUP BY status")
-            .bind("id", agencyId)
-            .fetch().all()
-            .collectMap(row -> (String) row.get("status"), row -> (Long) row.get("count"))
-            .map(DistributionDataDTO::new);
-    }
-
-    // ==========================================
-    // MÉTHODES POUR ORGANISATION (AGRÉGATION)
-    // ==========================================
-
-    private Mono<GlobalStatsDTO> getGlobalStatsForOrg(UUID orgId) {
-         String sql = """
-            SELECT
-                (SELECT COUNT(*) FROM agencies WHERE organization_id = :id) as agencies,
-                (SELECT COUNT(*) FROM vehicles WHERE organization_id = :id) as vehicles,
-                (SELECT COUNT(*) FROM drivers WHERE organization_id = :id) as drivers,
-                (SELECT COUNT(*) FROM users WHERE organization_id = :id AND role = 'STAFF') as staff,
-                (SELECT COUNT(*) FROM rentals r JOIN agencies a ON r.agency_id = a.id WHERE a.organization_id = :id) as total_rentals,
-                (SELECT COUNT(*) FROM rentals r JOIN agencies a ON r.agency_id = a.id WHERE a.organization_id = :id AND r.status = 'ONGOING') as active_rentals,
-                (SELECT COUNT(*) FROM rentals r JOIN agencies a ON r.agency_id = a.id WHERE a.organization_id = :id AND r.status = 'RESERVED') as reservations,
-                (SELECT COALESCE(SUM(p.amount), 0) FROM payments p JOIN rentals r ON p.rental_id = r.id JOIN agencies a ON r.agency_id = a.id WHERE a.organization_id = :id) as total_rev,
-                (SELECT COALESCE(SUM(p.amount), 0) FROM payments p JOIN rentals r ON p.rental_id = r.id JOIN agencies a ON r.agency_id = a.id WHERE a.organization_id = :id AND EXTRACT(MONTH FROM p.transaction_date) = EXTRACT(MONTH FROM CURRENT_DATE)) as month_rev
-        """;
+            SELECT v.vehicles, d.drivers, s.staff, r.total_rentals, r.active_rentals, r.reservations, p.total_rev, p.month_rev
+            FROM (SELECT COALESCE(SUM(vehicle_count), 0) AS vehicles
+                  FROM agency_vehicle_status_counts WHERE agency_id IN (:ids)) v,
+                 (SELECT COUNT(*) AS drivers FROM drivers WHERE %1$s = :scopeId) d,
+                 (SELECT COUNT(*) AS staff FROM users WHERE %1$s = :scopeId AND role = 'STAFF') s,
+                 (SELECT COALESCE(SUM(rental_count), 0) AS total_rentals,
+                         COALESCE(SUM(rental_count) FILTER (WHERE status = 'ONGOING'), 0) AS active_rentals,
+                         COALESCE(SUM(rental_count) FILTER (WHERE status = 'RESERVED'), 0) AS reservations
+                  FROM agency_monthly_rentals WHERE agency_id IN (:ids)) r,
+                 (SELECT COALESCE(SUM(revenue), 0) AS total_rev,
+                         COALESCE(SUM(revenue) FILTER (WHERE month = date_trunc('month', CURRENT_DATE)::date), 0) AS month_rev
+                  FROM agency_monthly_revenue WHERE agency_id IN (:ids)) p
+        """.formatted(scopeColumn);
 
         return databaseClient.sql(sql)
-            .bind("id", orgId)
+            .bind("ids", agencyIds)
+            .bind("scopeId", scopeId)
             .map(row -> new GlobalStatsDTO(
-                row.get("agencies", Long.class),
+                (long) agencyIds.size(),
                 row.get("vehicles", Long.class),
                 row.get("drivers", Long.class),
                 row.get("staff", Long.class),
@@ -161,38 +104,46 @@ public class StatisticsService {
             )).one();
     }
 
-    private Mono<TimeSeriesDataDTO> getRevenueEvolutionForOrg(List<UUID> agencyIds, int year) {
+    private Mono<TimeSeriesDataDTO> getRevenueEvolution(List<UUID> agencyIds, int year) {
         String sql = """
-            SELECT TO_CHAR(transaction_date, 'Mon') as month, SUM(amount) as total
-            FROM payments p JOIN rentals r ON p.rental_id = r.id
-            WHERE r.agency_id IN (:ids) AND EXTRACT(YEAR FROM transaction_date) = :year
-            GROUP BY EXTRACT(MONTH FROM transaction_date), TO_CHAR(transaction_date, 'Mon')
-            ORDER BY EXTRACT(MONTH FROM transaction_date)
+            SELECT TO_CHAR(month, 'Mon') as month, SUM(revenue) as total
+            FROM agency_monthly_revenue
+            WHERE agency_id IN (:ids) AND month >= :from AND month < :to
+            GROUP BY agency_monthly_revenue.month
+            HAVING SUM(payments_count) > 0
+            ORDER BY agency_monthly_revenue.month
         """;
-        return buildTimeSeriesList(sql, agencyIds, year);
+        return buildTimeSeries(sql, agencyIds, year);
     }
 
-    private Mono<TimeSeriesDataDTO> getRentalEvolutionForOrg(List<UUID> agencyIds, int year) {
+    private Mono<TimeSeriesDataDTO> getRentalEvolution(List<UUID> agencyIds, int year) {
         String sql = """
-            SELECT TO_CHAR(created_at, 'Mon') as month, COUNT(*) as total
-            FROM rentals
-            WHERE agency_id IN (:ids) AND EXTRACT(YEAR FROM created_at) = :year
-            GROUP BY EXTRACT(MONTH FROM created_at), TO_CHAR(created_at, 'Mon')
-            ORDER BY EXTRACT(MONTH FROM created_at)
+            SELECT TO_CHAR(month, 'Mon') as month, SUM(rental_count) as total
+            FROM agency_monthly_rentals
+            WHERE agency_id IN (:ids) AND month >= :from AND month < :to
+            GROUP BY agency_monthly_rentals.month
+            HAVING SUM(rental_count) > 0
+            ORDER BY agency_monthly_rentals.month
         """;
-        return buildTimeSeriesList(sql, agencyIds, year);
+        return buildTimeSeries(sql, agencyIds, year);
     }
 
-    private Mono<DistributionDataDTO> getVehicleStatusDistributionForOrg(List<UUID> agencyIds) {
-         return databaseClient.sql("SELECT statut, COUNT(*) as count FROM vehicles WHERE agency_id IN (:ids) GROUP BY statut")
+    private Mono<DistributionDataDTO> getVehicleStatusDistribution(List<UUID> agencyIds) {
+        return databaseClient.sql("""
+                SELECT statut, SUM(vehicle_count) as count FROM agency_vehicle_status_counts
+                WHERE agency_id IN (:ids) GROUP BY statut HAVING SUM(vehicle_count) > 0
+            """)
             .bind("ids", agencyIds)
             .fetch().all()
             .collectMap(row -> (String) row.get("statut"), row -> (Long) row.get("count"))
             .map(DistributionDataDTO::new);
     }
 
-    private Mono<DistributionDataDTO> getRentalStatusDistributionForOrg(List<UUID> agencyIds) {
-        return databaseClient.sql("SELECT status, COUNT(*) as count FROM rentals WHERE agency_id IN (:ids) GROUP BY status")
+    private Mono<DistributionDataDTO> getRentalStatusDistribution(List<UUID> agencyIds) {
+        return databaseClient.sql("""
+                SELECT status, SUM(rental_count) as count FROM agency_monthly_rentals
+                WHERE agency_id IN (:ids) GROUP BY status HAVING SUM(rental_count) > 0
+            """)
             .bind("ids", agencyIds)
             .fetch().all()
             .collectMap(row -> (String) row.get("status"), row -> (Long) row.get("count"))
@@ -203,13 +154,10 @@ public class StatisticsService {
     // HELPERS & COMPARAISONS
     // ==========================================
 
-    private Mono<TimeSeriesDataDTO> buildTimeSeries(String sql, UUID id, int year) {
-        return databaseClient.sql(sql).bind("id", id).bind("year", year)
-            .fetch().all().collectList().map(this::mapRowsToTimeSeries);
-    }
-
-    private Mono<TimeSeriesDataDTO> buildTimeSeriesList(String sql, List<UUID> ids, int year) {
-        return databaseClient.sql(sql).bind("ids", ids).bind("year", year)
+    // Bornes semi-ouvertes [1er janvier, 1er janvier suivant) : l'index (agency_id, month) est utilisé
+    private Mono<TimeSeriesDataDTO> buildTimeSeries(String sql, List<UUID> ids, int year) {
+        LocalDate from = LocalDate.of(year, 1, 1);
+        return databaseClient.sql(sql).bind("ids", ids).bind("from", from).bind("to", from.plusYears(1))
             .fetch().all().collectList().map(this::mapRowsToTimeSeries);
     }
 
@@ -224,103 +172,51 @@ public class StatisticsService {
         return new TimeSeriesDataDTO(labels, values);
     }
 
+    // Une requête pour toutes les agences de l'organisation (agrégats groupés par agence)
     private Mono<List<AgencyComparisonDTO>> getAgencyComparison(UUID orgId) {
-        return agencyRepository.findAllByOrganizationId(orgId)
-            .flatMap(agency -> {
-                Mono<Long> vehicles = databaseClient.sql("SELECT COUNT(*) FROM vehicles WHERE agency_id = :id")
-                    .bind("id", agency.getId()).map(row -> row.get(0, Long.class)).one();
-
-                Mono<Long> rentals = databaseClient.sql("SELECT COUNT(*) FROM rentals WHERE agency_id = :id")
-                    .bind("id", agency.getId()).map(row -> row.get(0, Long.class)).one();
-
-                Mono<BigDecimal> revenue = databaseClient.sql("SELECT COALESCE(SUM(p.amount), 0) FROM payments p JOIN rentals r ON p.rental_id = r.id WHERE r.agency_id = :id")
-                    .bind("id", agency.getId()).map(row -> row.get(0, BigDecimal.class)).one();
-
-                return Mono.zip(vehicles, rentals, revenue)
-                    .map(t -> new AgencyComparisonDTO(agency.getName(), t.getT1(), t.getT2(), t.getT3()));
-            })
-            .collectList()
-            .map(list -> {
-                list.sort(Comparator.comparing(AgencyComparisonDTO::revenue).reversed());
-                return list;
-            });
+        String sql = """
+            SELECT a.name,
+                   COALESCE(v.vehicles, 0) AS vehicles,
+                   COALESCE(r.rentals, 0) AS rentals,
+                   COALESCE(p.revenue, 0) AS revenue
+            FROM agencies a
+            LEFT JOIN (SELECT agency_id, SUM(vehicle_count) AS vehicles
+                       FROM agency_vehicle_status_counts GROUP BY agency_id) v ON v.agency_id = a.id
+            LEFT JOIN (SELECT agency_id, SUM(rental_count) AS rentals
+                       FROM agency_monthly_rentals GROUP BY agency_id) r ON r.agency_id = a.id
+            LEFT JOIN (SELECT agency_id, SUM(revenue) AS revenue
+                       FROM agency_monthly_revenue GROUP BY agency_id) p ON p.agency_id = a.id
+            WHERE a.organization_id = :orgId
+            ORDER BY revenue DESC
+        """;
+        return databaseClient.sql(sql)
+            .bind("orgId", orgId)
+            .map(row -> new AgencyComparisonDTO(
+                row.get("name", String.class),
+                row.get("vehicles", Long.class),
+                row.get("rentals", Long.class),
+                row.get("revenue", BigDecimal.class)))
+            .all()
+            .collectList();
     }
 
     // ==========================================
-    // RAPPORTS DÉTAILLÉS (CORRIGÉS)
+    // RAPPORTS DÉTAILLÉS
     // ==========================================
+    // Un rapport couvre une ou plusieurs agences avec le même nombre de requêtes (une par source, groupée
+    // par agence) : les DTO par agence sont assemblés en mémoire.
 
-    public Mono<AgencyStatsDTO> getAgencyStats(UUID agencyId, int year, Integer month) {
-        String dateFilter = (month == null)
-            ? "EXTRACT(YEAR FROM r.created_at) = :year"
-            : "EXTRACT(YEAR FROM r.created_at) = :year AND EXTRACT(MONTH FROM r.created_at) = :month";
-
-        String dateFilterNoAlias = (month == null)
-            ? "EXTRACT(YEAR FROM created_at) = :year"
-            : "EXTRACT(YEAR FROM created_at) = :year AND EXTRACT(MONTH FROM created_at) = :month";
+    private record PeriodCounts(BigDecimal revenue, Map<String, Long> rentalsByStatus, Map<String, Long> topVehicles) {}
 
-        String revSql = "SELECT COALESCE(SUM(p.amount), 0) FROM payments p JOIN rentals r ON p.rental_id = r.id WHERE r.agency_id = :agencyId AND EXTRACT(YEAR FROM p.transaction_date) = :year" +
-                        (month != null ? " AND EXTRACT(MONTH FROM p.transaction_date) = :month" : "");
-
-        DatabaseClient.GenericExecuteSpec revSpec = databaseClient.sql(revSql)
-            .bind("agencyId", agencyId)
-            .bind("year", year);
-        if (month != null) revSpec = revSpec.bind("month", month);
-
-        Mono<BigDecimal> revenueMono = revSpec.map((row, meta) -> row.get(0, BigDecimal.class)).one();
-
-        String countsSql = "SELECT status, COUNT(*) as count FROM rentals WHERE agency_id = :agencyId AND " + dateFilterNoAlias + " GROUP BY status";
-        DatabaseClient.GenericExecuteSpec countsSpec = databaseClient.sql(countsSql)
-            .bind("agencyId", agencyId)
-            .bind("year", year);
-        if (month != null) countsSpec = countsSpec.bind("month", month);
-
-        Mono<Map<String, Long>> rentalCountsMono = countsSpec.fetch().all().collectMap(
-            row -> (String) row.get("status"),
-            row -> (Long) row.get("count")
-        );
-
-        String topVehSql = "SELECT v.brand || ' ' || v.model as name, COUNT(*) as count FROM rentals r JOIN vehicles v ON r.vehicle_id = v.id WHERE r.agency_id = :agencyId AND " + dateFilter + " GROUP BY v.brand, v.model ORDER BY count DESC LIMIT 5";
-        DatabaseClient.GenericExecuteSpec topVehSpec = databaseClient.sql(topVehSql)
-            .bind("agencyId", agencyId)
-            .bind("year", year);
-        if (month != null) topVehSpec = topVehSpec.bind("month", month);
-
-        Mono<Map<String, Long>> topVehiclesMono = topVehSpec.fetch().all().collectMap(
-            row -> (String) row.get("name"),
-            row -> (Long) row.get("count")
-        );
-
-        return Mono.zip(revenueMono, rentalCountsMono, topVehiclesMono, agencyRepository.findById(agencyId))
-            .map(tuple -> {
-                BigDecimal revenue = tuple.getT1();
-                Map<String, Long> counts = tuple.getT2();
-                Map<String, Long> vehicles = tuple.getT3();
-                var agency = tuple.getT4();
-
-                long total = counts.values().stream().mapToLong(Long::longValue).sum();
-                long completed = counts.getOrDefault("COMPLETED", 0L);
-                long active = counts.getOrDefault("ONGOING", 0L);
-                long cancelled = counts.getOrDefault("CANCELLED", 0L);
-
-                return new AgencyStatsDTO(
-                    agency.getName(),
-                    revenue,
-                    month != null ? revenue : BigDecimal.ZERO,
-                    month == null ? revenue : BigDecimal.ZERO,
-                    total,
-                    active,
-                    completed,
-                    cancelled,
-                    vehicles,
-                    Map.of()
-                );
-            });
+    public Mono<AgencyStatsDTO> getAgencyStats(UUID agencyId, int year, Integer month) {
+        return agencyRepository.findById(agencyId)
+            .flatMap(agency -> getAgenciesStats(List.of(agency), year, month).next());
     }
 
     public Mono<OrgStatsDTO> getOrganizationStats(UUID orgId, int year) {
         return agencyRepository.findAllByOrganizationId(orgId)
-            .flatMap(agency -> getAgencyStats(agency.getId(), year, null))
+            .collectList()
+            .flatMapMany(agencies -> getAgenciesStats(agencies, year, null))
             .collectList()
             .map(agencyStatsList -> {
                 BigDecimal totalRev = agencyStatsList.stream()
@@ -343,4 +239,82 @@ public class StatisticsService {
                 );
             });
     }
+
+    /**
+     * Statistiques de plusieurs agences sur une année ou un mois : trois requêtes groupées par agence
+     * (revenus, locations par statut, véhicules les plus loués), quel que soit le nombre d'agences.
+     */
+    private Flux<AgencyStatsDTO> getAgenciesStats(List<AgencyEntity> agencies, int year, Integer month) {
+        if (agencies.isEmpty()) return Flux.empty();
+        List<UUID> ids = agencies.stream().map(AgencyEntity::getId).toList();
+        LocalDate from = (month == null) ? LocalDate.of(year, 1, 1) : LocalDate.of(year, month, 1);
+        LocalDate to = (month == null) ? from.plusYears(1) : from.plusMonths(1);
+
+        Mono<Map<UUID, BigDecimal>> revenueMono = databaseClient.sql("""
+                SELECT agency_id, SUM(revenue) AS revenue FROM agency_monthly_revenue
+                WHERE agency_id IN (:ids) AND month >= :from AND month < :to
+                GROUP BY agency_id
+            """)
+            .bind("ids", ids).bind("from", from).bind("to", to)
+            .map(row -> Map.entry(row.get("agency_id", UUID.class), row.get("revenue", BigDecimal.class)))
+            .all()
+            .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+
+        Mono<Map<UUID, Map<String, Long>>> countsMono = databaseClient.sql("""
+                SELECT agency_id, status, SUM(rental_count) AS count FROM agency_monthly_rentals
+                WHERE agency_id IN (:ids) AND month >= :from AND month < :to
+                GROUP BY agency_id, status
+            """)
+            .bind("ids", ids).bind("from", from).bind("to", to)
+            .map(row -> new Object[]{ row.get("agency_id", UUID.class), row.get("status", String.class), row.get("count", Long.class) })
+            .all()
+            .collect(HashMap::new, (map, r) -> map.computeIfAbsent((UUID) r[0], k -> new HashMap<>()).put((String) r[1], (Long) r[2]));
+
+        Mono<Map<UUID, Map<String, Long>>> topVehiclesMono = databaseClient.sql("""
+                SELECT agency_id, name, count FROM (
+                    SELECT r.agency_id, v.brand || ' ' || v.model AS name, COUNT(*) AS count,
+                           ROW_NUMBER() OVER (PARTITION BY r.agency_id ORDER BY COUNT(*) DESC) AS rn
+                    FROM rentals r JOIN vehicles v ON r.vehicle_id = v.id
+                    WHERE r.agency_id IN (:ids) AND r.created_at >= :from AND r.created_at < :to
+                    GROUP BY r.agency_id, v.brand, v.model
+                ) ranked
+                WHERE rn <= 5
+                ORDER BY agency_id, count DESC
+            """)
+            .bind("ids", ids).bind("from", from.atStartOfDay()).bind("to", to.atStartOfDay())
+            .map(row -> new Object[]{ row.get("agency_id", UUID.class), row.get("name", String.class), row.get("count", Long.class) })
+            .all()
+            .collect(HashMap::new, (map, r) -> map.computeIfAbsent((UUID) r[0], k -> new LinkedHashMap<>()).put((String) r[1], (Long) r[2]));
+
+        return Mono.zip(revenueMono, countsMono, topVehiclesMono)
+            .flatMapIterable(tuple -> agencies.stream()
+                .map(agency -> toAgencyStats(agency, month, new PeriodCounts(
+                    tuple.getT1().getOrDefault(agency.getId(), BigDecimal.ZERO),
+                    tuple.getT2().getOrDefault(agency.getId(), Map.of()),
+                    tuple.getT3().getOrDefault(agency.getId(), Map.of()))))
+                .toList());
+    }
+
+    private AgencyStatsDTO toAgencyStats(AgencyEntity agency, Integer month, PeriodCounts period) {
+        BigDecimal revenue = period.revenue();
+        Map<String, Long> counts = period.rentalsByStatus();
+
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        long completed = counts.getOrDefault("COMPLETED", 0L);
+        long active = counts.getOrDefault("ONGOING", 0L);
+        long cancelled = counts.getOrDefault("CANCELLED", 0L);
+
+        return new AgencyStatsDTO(
+            agency.getName(),
+            revenue,
+            month != null ? revenue : BigDecimal.ZERO,
+            month == null ? revenue : BigDecimal.ZERO,
+            total,
+            active,
+            completed,
+            cancelled,
+            period.topVehicles(),
+            Map.of()
+        );
+    }
 }
@@ -1,8 +1,10 @@
 package com.project.apirental.modules.vehicle.api;
 
 import com.project.apirental.modules.vehicle.domain.VehicleCategoryEntity;
+import com.project.apirental.modules.vehicle.dto.CategoryCacheStatsDTO;
 import com.project.apirental.modules.vehicle.dto.CategoryRequestDTO;
 import com.project.apirental.modules.vehicle.repository.CategoryRepository;
+import com.project.apirental.modules.vehicle.services.CategoryCacheService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -24,6 +26,7 @@ import java.util.UUID;
 public class CategoryController {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryCacheService categoryCacheService;
 
     @Operation(summary = "Créer une catégorie de véhicule")
     @PostMapping("/org/{orgId}")
@@ -42,13 +45,15 @@ public class CategoryController {
                 .isNewRecord(true)
                 .build();
 
-        return categoryRepository.save(Objects.requireNonNull(category)).map(ResponseEntity::ok);
+        return categoryRepository.save(Objects.requireNonNull(category))
+                .doOnNext(categoryCacheService::evict)
+                .map(ResponseEntity::ok);
     }
 
     @Operation(summary = "Lister les catégories de véhicules d'une organisation (Org + Système)")
     @GetMapping("/org/{orgId}")
     public Flux<VehicleCategoryEntity> getByOrg(@PathVariable UUID orgId) {
-        return categoryRepository.findAllByOrganizationIdOrSystem(orgId);
+        return categoryCacheService.getCategoriesForOrg(orgId);
     }
 
     @Operation(summary = "Lister toutes les catégories de véhicules (plateforme)")
@@ -62,17 +67,24 @@ public class CategoryController {
     // @PreAuthorize("hasRole('ORGANIZATION') or ADMIN or @rbac.hasPermission(#orgId, 'vehiclecategory:list')")
     @PreAuthorize("hasRole('ORGANIZATION') or ADMIN")
     public Flux<VehicleCategoryEntity> getByAgency(@PathVariable UUID agencyId) {
-        return categoryRepository.findAllByAgencyIdOrSystem(agencyId);
+        return categoryCacheService.getCategoriesForAgency(agencyId);
     }
 
     @Operation(summary = "Obtenir les détails d'une catégorie")
     @GetMapping("/{id}")
     public Mono<ResponseEntity<VehicleCategoryEntity>> getById(@PathVariable UUID id) {
-        return categoryRepository.findById(Objects.requireNonNull(id))
+        return categoryCacheService.getById(Objects.requireNonNull(id))
                 .map(ResponseEntity::ok)
                 .switchIfEmpty(Mono.error(new RuntimeException("Catégorie non trouvée")));
     }
 
+    @Operation(summary = "Statistiques du cache des catégories (hits / misses)")
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<CategoryCacheStatsDTO> getCacheStats() {
+        return Mono.fromSupplier(categoryCacheService::getStats);
+    }
+
     @Operation(summary = "Supprimer une catégorie (Uniquement si elle appartient à l'organisation)")
     @DeleteMapping("/{id}")
     // @PreAuthorize("hasRole('ORGANIZATION') or @rbac.hasPermission(#orgId, 'vehiclecategory:delete')")
@@ -83,7 +95,8 @@ public class CategoryController {
                     if (cat.getOrganizationId() == null) {
                         return Mono.error(new RuntimeException("Impossible de supprimer une catégorie système"));
                     }
-                    return categoryRepository.deleteById(Objects.requireNonNull(id));
+                    return categoryRepository.deleteById(Objects.requireNonNull(id))
+                            .doOnSuccess(v -> categoryCacheService.evict(cat));
                 })
                 .then(Mono.just(ResponseEntity.noContent().build()));
     }
@@ -100,6 +113,7 @@ public class CategoryController {
                     existingCat.setDescription(request.description());
                     return categoryRepository.save(existingCat);
                 })
+                .doOnNext(categoryCacheService::evict)
                 .map(ResponseEntity::ok)
                 .switchIfEmpty(Mono.error(new RuntimeException("Catégorie non trouvée")));
     }
@@ -4,10 +4,16 @@ import com.project.apirental.modules.driver.dto.DriverResponseDTO;
 import com.project.apirental.modules.driver.services.DriverService;
 import com.project.apirental.modules.vehicle.dto.VehicleRequestDTO;
 import com.project.apirental.modules.vehicle.dto.VehicleResponseDTO;
+import com.project.apirental.modules.vehicle.services.VehicleDetailCacheService;
+import com.project.apirental.modules.vehicle.services.VehicleImportService;
 import com.project.apirental.modules.vehicle.services.VehicleService;
 import com.project.apirental.modules.vehicle.dto.VehicleDetailResponseDTO;
 import com.project.apirental.modules.vehicle.dto.PricingUpdateDTO;
 import com.project.apirental.modules.vehicle.dto.ScheduleUpdateDTO;
+import com.project.apirental.modules.vehicle.dto.NearbyVehicleDTO;
+import com.project.apirental.modules.vehicle.dto.VehicleSummaryDTO;
+import com.project.apirental.shared.dto.ImportReportDTO;
+import com.project.apirental.shared.dto.PageResponseDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -15,6 +21,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -33,6 +43,8 @@ public class VehicleController {
 
     private final VehicleService vehicleService;
     private final DriverService driverService;
+    private final VehicleImportService vehicleImportService;
+    private final VehicleDetailCacheService vehicleDetailCacheService;
 
     @Operation(summary = "Ajouter un véhicule à la flotte (Vérifie les quotas)")
     @NotNull
@@ -42,6 +54,13 @@ public class VehicleController {
         return vehicleService.createVehicle(orgId, request).map(ResponseEntity::ok);
     }
 
+    @Operation(summary = "Importer des véhicules en masse (NDJSON : un véhicule par ligne)")
+    @PostMapping(value = "/org/{orgId}/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ORGANIZATION') or @rbac.hasPermission(#orgId, 'vehicle:create')")
+    public Mono<ResponseEntity<ImportReportDTO>> importVehicles(@PathVariable UUID orgId, @RequestBody Flux<String> lines) {
+        return vehicleImportService.importVehicles(orgId, lines).map(ResponseEntity::ok);
+    }
+
     @Operation(summary = "Lister tous les véhicules d'une organisation")
     @GetMapping("/org/{orgId}")
     public Flux<VehicleResponseDTO> getAllByOrg(@PathVariable UUID orgId) {
@@ -54,6 +73,24 @@ public class VehicleController {
         return vehicleService.getVehiclesByAgency(agencyId);
     }
 
+    @Operation(summary = "Lister les véhicules d'une organisation (Paginé par curseur)")
+    @GetMapping("/org/{orgId}/page")
+    public Mono<PageResponseDTO<VehicleResponseDTO>> getPageByOrg(
+            @PathVariable UUID orgId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return vehicleService.getVehiclesPageByOrg(orgId, cursor, size);
+    }
+
+    @Operation(summary = "Lister les véhicules d'une agence (Paginé par curseur)")
+    @GetMapping("/agency/{agencyId}/page")
+    public Mono<PageResponseDTO<VehicleResponseDTO>> getPageByAgency(
+            @PathVariable UUID agencyId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return vehicleService.getVehiclesPageByAgency(agencyId, cursor, size);
+    }
+
     @Operation(summary = "Lister tous les véhicules disponibles sur la plateforme")
     @GetMapping("/available")
     public Flux<VehicleResponseDTO> getAvailableVehicles() {
@@ -64,10 +101,57 @@ public class VehicleController {
     @Operation(summary = "Rechercher des véhicules disponibles (Client)")
     @GetMapping("/search")
     public Flux<VehicleResponseDTO> searchVehicles(
+            @RequestParam(required = false) UUID agencyId,
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(required = false) String keyword,
+            @Parameter(description = "Date de début (ISO-8601), optionnelle") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "Date de fin (ISO-8601), optionnelle") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        return vehicleService.searchAvailableVehicles(agencyId, categoryId, keyword, startDate, endDate);
+    }
+
+    @Operation(summary = "Lister les véhicules d'une organisation (Résumé pour cartes de liste)")
+    @GetMapping("/org/{orgId}/summary")
+    public Flux<VehicleSummaryDTO> getSummariesByOrg(@PathVariable UUID orgId) {
+        return vehicleService.getVehicleSummariesByOrg(orgId);
+    }
+
+    @Operation(summary = "Lister les véhicules d'une agence (Résumé pour cartes de liste)")
+    @GetMapping("/agency/{agencyId}/summary")
+    public Flux<VehicleSummaryDTO> getSummariesByAgency(@PathVariable UUID agencyId) {
+        return vehicleService.getVehicleSummariesByAgency(agencyId);
+    }
+
+    // Route publique : catalogue résumé (marque, modèle, prix, première image)
+    @Operation(summary = "Rechercher des véhicules disponibles (Résumé pour cartes de liste)")
+    @GetMapping("/search/summary")
+    public Flux<VehicleSummaryDTO> searchVehicleSummaries(
             @RequestParam(required = false) UUID agencyId,
             @RequestParam(required = false) UUID categoryId,
             @RequestParam(required = false) String keyword) {
-        return vehicleService.searchAvailableVehicles(agencyId, categoryId, keyword);
+        return vehicleService.searchAvailableVehicleSummaries(agencyId, categoryId, keyword);
+    }
+
+    // Route publique : recherche classée par pertinence, tolérante aux fautes de frappe
+    @Operation(summary = "Recherche classée de véhicules disponibles (marque, modèle, couleur, catégorie, ville)")
+    @GetMapping("/search/ranked")
+    public Flux<VehicleResponseDTO> searchVehiclesRanked(
+            @RequestParam String keyword,
+            @RequestParam(required = false) UUID agencyId,
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(required = false) Integer limit) {
+        return vehicleService.searchRankedVehicles(agencyId, categoryId, keyword, limit);
+    }
+
+    // Route publique : "voitures près de moi"
+    @Operation(summary = "Véhicules disponibles autour d'une position (triés par distance)")
+    @GetMapping("/nearby")
+    public Flux<NearbyVehicleDTO> getNearbyVehicles(
+            @Parameter(description = "Latitude du client") @RequestParam Double latitude,
+            @Parameter(description = "Longitude du client") @RequestParam Double longitude,
+            @Parameter(description = "Rayon de recherche en km (défaut 25, max 200)") @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) UUID categoryId,
+            @RequestParam(required = false) Integer limit) {
+        return vehicleService.findNearbyVehicles(latitude, longitude, radiusKm, categoryId, limit);
     }
 
     // Route publique pour lister les véhicules disponibles d'une agence
@@ -89,8 +173,22 @@ public class VehicleController {
 
     @Operation(summary = "Obtenir les détails complets (Planning + Prix + evaluation) d'un véhicule")
     @GetMapping("/{id}/details")
-    public Mono<ResponseEntity<VehicleDetailResponseDTO>> getVehicleDetails(@PathVariable UUID id) {
-        return vehicleService.getVehicleDetails(id).map(ResponseEntity::ok);
+    public Mono<ResponseEntity<VehicleDetailResponseDTO>> getVehicleDetails(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Fiche servie depuis le cache ; 304 si le client possède déjà la version courante
+        return vehicleDetailCacheService.getDetail(id).map(entry -> {
+            if (VehicleDetailCacheService.matches(ifNoneMatch, entry.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(entry.etag())
+                        .cacheControl(CacheControl.noCache())
+                        .<VehicleDetailResponseDTO>build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(entry.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .body(entry.detail());
+        });
     }
 
     @Operation(summary = "Mettre à jour le prix de location du véhicule")
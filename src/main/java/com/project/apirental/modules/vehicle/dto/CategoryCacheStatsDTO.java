@@ -0,0 +1,11 @@
+package com.project.apirental.modules.vehicle.dto;
+
+// Statistiques du cache des catégories (hits / misses depuis le démarrage)
+public record CategoryCacheStatsDTO(
+    long hits,
+    long misses,
+    double hitRatio,
+    int cachedCategories,
+    int cachedOrganizations,
+    int systemCategories
+) {}
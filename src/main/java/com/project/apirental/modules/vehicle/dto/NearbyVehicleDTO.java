@@ -0,0 +1,12 @@
+package com.project.apirental.modules.vehicle.dto;
+
+import java.util.UUID;
+
+// Véhicule disponible proche du client : distance (km) calculée depuis son agence
+public record NearbyVehicleDTO(
+    VehicleResponseDTO vehicle,
+    UUID agencyId,
+    String agencyName,
+    String agencyCity,
+    double distanceKm
+) {}
@@ -0,0 +1,27 @@
+package com.project.apirental.modules.vehicle.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Carte véhicule pour les listes : colonnes scalaires + première image, sans décodage JSONB
+public record VehicleSummaryDTO(
+    UUID id,
+    UUID agencyId,
+    UUID categoryId,
+    String categoryName,
+    String brand,
+    String model,
+    LocalDateTime yearProduction,
+    Integer places,
+    String statut,
+    String color,
+    String transmission,
+    Double rating,
+    String thumbnail,       // Première entrée de images_list (null si aucune image)
+
+    // PRIX
+    BigDecimal pricePerHour,
+    BigDecimal pricePerDay,
+    String currency
+) {}
@@ -12,6 +12,9 @@ import java.util.UUID;
 @Repository
 public interface CategoryRepository extends R2dbcRepository<VehicleCategoryEntity, UUID> {
 
+    // Catégories système (communes à toutes les organisations)
+    Flux<VehicleCategoryEntity> findAllByOrganizationIdIsNull();
+
     // Récupère les catégories via l'ID de l'organisation + Système
     @Query("SELECT * FROM vehicle_categories WHERE organization_id = :orgId OR organization_id IS NULL ORDER BY name ASC")
     Flux<VehicleCategoryEntity> findAllByOrganizationIdOrSystem(UUID orgId);
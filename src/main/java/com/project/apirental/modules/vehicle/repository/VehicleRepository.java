@@ -6,6 +6,7 @@ import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public interface VehicleRepository extends R2dbcRepository<VehicleEntity, UUID> {
@@ -25,9 +26,72 @@ public interface VehicleRepository extends R2dbcRepository<VehicleEntity, UUID>
     Flux<VehicleEntity> findAllByAgencyIdAndStatut(UUID agencyId, String statut);
 
     //  Recherche avancée de véhicules disponibles
+    // (search_text est maintenu par trigger et indexé en GIN trigramme : l'ILIKE n'est plus un parcours séquentiel)
     @Query("SELECT * FROM vehicles WHERE statut = 'AVAILABLE' " +
            "AND (:agencyId::uuid IS NULL OR agency_id = :agencyId) " +
            "AND (:categoryId::uuid IS NULL OR category_id = :categoryId) " +
-           "AND (:keyword::text IS NULL OR brand ILIKE '%' || :keyword || '%' OR model ILIKE '%' || :keyword || '%')")
+           "AND (:keyword::text IS NULL OR search_text ILIKE '%' || :keyword || '%')")
     Flux<VehicleEntity> searchAvailableVehicles(UUID agencyId, UUID categoryId, String keyword);
+
+    // Recherche de véhicules réellement libres sur une période :
+    // exclut les plannings bloquants et les locations actives qui chevauchent [startDate, endDate)
+    // (même prédicat que RentalRepository.countConflictingRentals), via les index GiST sur tsrange.
+    @Query("""
+        SELECT v.* FROM vehicles v
+        WHERE v.statut = 'AVAILABLE'
+        AND (:agencyId::uuid IS NULL OR v.agency_id = :agencyId)
+        AND (:categoryId::uuid IS NULL OR v.category_id = :categoryId)
+        AND (:keyword::text IS NULL OR v.search_text ILIKE '%' || :keyword || '%')
+        AND NOT EXISTS (
+            SELECT 1 FROM schedules s
+            WHERE s.resource_id = v.id
+            AND s.resource_type = 'VEHICLE'
+            AND s.status IN ('UNAVAILABLE', 'RENTED', 'MAINTENANCE')
+            AND tsrange(s.start_date, s.end_date) && tsrange(:startDate::timestamp, :endDate::timestamp)
+        )
+        AND NOT EXISTS (
+            SELECT 1 FROM rentals r
+            WHERE r.vehicle_id = v.id
+            AND r.status NOT IN ('CANCELLED', 'COMPLETED', 'EXPIRED')
+            AND tsrange(r.start_date, r.end_date) && tsrange(:startDate::timestamp, :endDate::timestamp)
+        )
+    """)
+    Flux<VehicleEntity> searchAvailableVehiclesForPeriod(UUID agencyId, UUID categoryId, String keyword,
+                                                         LocalDateTime startDate, LocalDateTime endDate);
+
+    // Véhicules disponibles des agences proches, du plus proche au plus lointain : la distance de chaque agence
+    // est passée en tableau parallèle, le tri et la limite sont faits en base
+    @Query("""
+        SELECT v.* FROM vehicles v
+        JOIN unnest(:agencyIds::uuid[], :distances::float8[]) AS d(agency_id, distance) ON d.agency_id = v.agency_id
+        WHERE v.statut = 'AVAILABLE'
+        AND (:categoryId::uuid IS NULL OR v.category_id = :categoryId)
+        ORDER BY d.distance, v.id
+        LIMIT :limit
+    """)
+    Flux<VehicleEntity> findNearestAvailable(UUID[] agencyIds, Double[] distances, UUID categoryId, int limit);
+
+    // Recherche classée avec tolérance aux fautes (pg_trgm) sur marque, modèle, couleur, catégorie et ville.
+    // "<%" exploite l'index GIN trigramme ; le score word_similarity ordonne les résultats.
+    @Query("""
+        SELECT v.* FROM vehicles v
+        WHERE v.statut = 'AVAILABLE'
+        AND (:agencyId::uuid IS NULL OR v.agency_id = :agencyId)
+        AND (:categoryId::uuid IS NULL OR v.category_id = :categoryId)
+        AND (v.search_text ILIKE '%' || :keyword || '%' OR lower(:keyword) <% v.search_text)
+        ORDER BY word_similarity(lower(:keyword), v.search_text) DESC, v.rating DESC NULLS LAST, v.id
+        LIMIT :limit
+    """)
+    Flux<VehicleEntity> searchRankedVehicles(UUID agencyId, UUID categoryId, String keyword, int limit);
+
+    // Pagination par curseur (created_at, id) - cf. KeysetPagination
+    @Query("SELECT * FROM vehicles WHERE organization_id = :orgId " +
+           "AND (:cursorDate::timestamp IS NULL OR (created_at, id) < (:cursorDate::timestamp, :cursorId::uuid)) " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<VehicleEntity> findPageByOrganizationId(UUID orgId, LocalDateTime cursorDate, UUID cursorId, int limit);
+
+    @Query("SELECT * FROM vehicles WHERE agency_id = :agencyId " +
+           "AND (:cursorDate::timestamp IS NULL OR (created_at, id) < (:cursorDate::timestamp, :cursorId::uuid)) " +
+           "ORDER BY created_at DESC, id DESC LIMIT :limit")
+    Flux<VehicleEntity> findPageByAgencyId(UUID agencyId, LocalDateTime cursorDate, UUID cursorId, int limit);
 }
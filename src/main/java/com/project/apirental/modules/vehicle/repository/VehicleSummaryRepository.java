@@ -0,0 +1,72 @@
+package com.project.apirental.modules.vehicle.repository;
+
+import com.project.apirental.modules.vehicle.dto.VehicleSummaryDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Projection légère des véhicules pour les listes : ne lit que les colonnes scalaires,
+ * la première image (images_list->>0), la catégorie et le prix en une seule requête.
+ * Les colonnes JSONB complètes restent réservées à la fiche détaillée.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VehicleSummaryRepository {
+
+    private static final String BASE_SQL = """
+        SELECT v.id, v.agency_id, v.category_id, c.name AS category_name,
+               v.brand, v.model, v.year_production, v.places, v.statut, v.color, v.transmission, v.rating,
+               v.images_list->>0 AS thumbnail,
+               p.price_per_hour, p.price_per_day, p.currency
+        FROM vehicles v
+        LEFT JOIN vehicle_categories c ON c.id = v.category_id
+        LEFT JOIN pricings p ON p.resource_type = 'VEHICLE' AND p.resource_id = v.id
+        WHERE 1 = 1
+        """;
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Tous les filtres sont optionnels (null = ignoré).
+     */
+    public Flux<VehicleSummaryDTO> findSummaries(UUID orgId, UUID agencyId, UUID categoryId, String keyword, boolean availableOnly) {
+        StringBuilder sql = new StringBuilder(BASE_SQL);
+        if (orgId != null) sql.append(" AND v.organization_id = :orgId");
+        if (agencyId != null) sql.append(" AND v.agency_id = :agencyId");
+        if (categoryId != null) sql.append(" AND v.category_id = :categoryId");
+        if (keyword != null) sql.append(" AND v.search_text ILIKE '%' || :keyword || '%'");
+        if (availableOnly) sql.append(" AND v.statut = 'AVAILABLE'");
+        sql.append(" ORDER BY v.created_at DESC, v.id DESC");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        if (orgId != null) spec = spec.bind("orgId", orgId);
+        if (agencyId != null) spec = spec.bind("agencyId", agencyId);
+        if (categoryId != null) spec = spec.bind("categoryId", categoryId);
+        if (keyword != null) spec = spec.bind("keyword", keyword);
+
+        return spec.map((row, meta) -> new VehicleSummaryDTO(
+                row.get("id", UUID.class),
+                row.get("agency_id", UUID.class),
+                row.get("category_id", UUID.class),
+                row.get("category_name", String.class),
+                row.get("brand", String.class),
+                row.get("model", String.class),
+                row.get("year_production", LocalDateTime.class),
+                row.get("places", Integer.class),
+                row.get("statut", String.class),
+                row.get("color", String.class),
+                row.get("transmission", String.class),
+                row.get("rating", Double.class),
+                row.get("thumbnail", String.class),
+                row.get("price_per_hour", BigDecimal.class),
+                row.get("price_per_day", BigDecimal.class),
+                row.get("currency", String.class)
+        )).all();
+    }
+}
@@ -0,0 +1,156 @@
+package com.project.apirental.modules.vehicle.services;
+
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.vehicle.domain.VehicleCategoryEntity;
+import com.project.apirental.modules.vehicle.dto.CategoryCacheStatsDTO;
+import com.project.apirental.modules.vehicle.repository.CategoryRepository;
+import com.project.apirental.shared.utils.LruMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache mémoire des catégories de véhicules (données quasi statiques).
+ * - Catégories système (organization_id NULL) préchargées au démarrage.
+ * - Catégories par organisation chargées à la demande, avec éviction LRU bornée.
+ * - Invalidation explicite par les écritures de CategoryController.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryCacheService {
+
+    private static final int MAX_CATEGORIES = 10_000;
+    private static final int MAX_ORGANIZATIONS = 1_000;
+
+    private final CategoryRepository categoryRepository;
+    private final AgencyRepository agencyRepository;
+
+    private final Map<UUID, VehicleCategoryEntity> byId = Collections.synchronizedMap(new LruMap<>(MAX_CATEGORIES));
+    // Liste "organisation + système" telle que renvoyée par findAllByOrganizationIdOrSystem
+    private final Map<UUID, List<VehicleCategoryEntity>> byOrg = Collections.synchronizedMap(new LruMap<>(MAX_ORGANIZATIONS));
+    private volatile List<VehicleCategoryEntity> systemCategories = List.of();
+    // Incrémenté à chaque invalidation : un chargement commencé avant une écriture n'est pas mis en cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadSystemCategories() {
+        categoryRepository.findAllByOrganizationIdIsNull()
+                .collectList()
+                .doOnNext(categories -> {
+                    systemCategories = List.copyOf(categories);
+                    categories.forEach(c -> byId.put(c.getId(), c));
+                    log.info("Cache catégories : {} catégories système préchargées", categories.size());
+                })
+                .doOnError(e -> log.error("Préchargement des catégories impossible : {}", e.getMessage()))
+                .subscribe();
+    }
+
+    public Mono<VehicleCategoryEntity> getById(UUID id) {
+        VehicleCategoryEntity cached = byId.get(Objects.requireNonNull(id));
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Mono.just(cached);
+        }
+        misses.incrementAndGet();
+        long version = invalidations.get();
+        return categoryRepository.findById(id)
+                .doOnNext(c -> {
+                    if (invalidations.get() == version) byId.put(c.getId(), c);
+                });
+    }
+
+    /**
+     * Résolution groupée : seuls les ids absents du cache partent en base (une requête IN).
+     */
+    public Mono<Map<UUID, VehicleCategoryEntity>> getByIds(Collection<UUID> ids) {
+        Map<UUID, VehicleCategoryEntity> found = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            VehicleCategoryEntity cached = byId.get(id);
+            if (cached != null) found.put(id, cached);
+            else missing.add(id);
+        }
+        hits.addAndGet(found.size());
+        if (missing.isEmpty()) {
+            return Mono.just(found);
+        }
+        misses.addAndGet(missing.size());
+        long version = invalidations.get();
+        return categoryRepository.findAllById(missing)
+                .doOnNext(c -> {
+                    if (invalidations.get() == version) byId.put(c.getId(), c);
+                })
+                .collectList()
+                .map(loaded -> {
+                    loaded.forEach(c -> found.put(c.getId(), c));
+                    return found;
+                });
+    }
+
+    public Flux<VehicleCategoryEntity> getCategoriesForOrg(UUID orgId) {
+        List<VehicleCategoryEntity> cached = byOrg.get(Objects.requireNonNull(orgId));
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Flux.fromIterable(cached);
+        }
+        misses.incrementAndGet();
+        long version = invalidations.get();
+        return categoryRepository.findAllByOrganizationIdOrSystem(orgId)
+                .collectList()
+                .doOnNext(categories -> {
+                    if (invalidations.get() != version) return;
+                    byOrg.put(orgId, List.copyOf(categories));
+                    categories.forEach(c -> byId.put(c.getId(), c));
+                })
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    public Flux<VehicleCategoryEntity> getCategoriesForAgency(UUID agencyId) {
+        return agencyRepository.findOrgIdByAgencyId(agencyId)
+                .flatMapMany(this::getCategoriesForOrg)
+                // Agence inconnue : seules les catégories système restent utilisables
+                .switchIfEmpty(Flux.defer(() -> Flux.fromIterable(systemCategories)
+                        .sort(Comparator.comparing(VehicleCategoryEntity::getName))));
+    }
+
+    /**
+     * À appeler après toute création / modification / suppression de catégorie.
+     * Une catégorie système est visible par toutes les organisations : toutes les listes sont vidées.
+     */
+    public void evict(VehicleCategoryEntity category) {
+        invalidations.incrementAndGet();
+        byId.remove(category.getId());
+        if (category.getOrganizationId() == null) {
+            byOrg.clear();
+            preloadSystemCategories();
+        } else {
+            byOrg.remove(category.getOrganizationId());
+        }
+    }
+
+    public CategoryCacheStatsDTO getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        return new CategoryCacheStatsDTO(h, m, h + m == 0 ? 0.0 : (double) h / (h + m),
+                byId.size(), byOrg.size(), systemCategories.size());
+    }
+}
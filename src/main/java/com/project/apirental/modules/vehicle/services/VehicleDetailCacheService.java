@@ -0,0 +1,89 @@
+package com.project.apirental.modules.vehicle.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.apirental.modules.vehicle.dto.VehicleDetailResponseDTO;
+import com.project.apirental.shared.enums.ResourceType;
+import com.project.apirental.shared.events.ResourceChangedEvent;
+import com.project.apirental.shared.utils.LruMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Document "fiche véhicule" matérialisé en mémoire avec son ETag fort.
+ * Une requête conditionnelle (If-None-Match) sur une entrée valide est servie sans accès base.
+ * Invalidation : ResourceChangedEvent (fiche, prix, planning, avis) + TTL court pour les
+ * changements non notifiés (catégorie, paramètres d'organisation, plannings arrivés à échéance).
+ */
+@Service
+@RequiredArgsConstructor
+public class VehicleDetailCacheService {
+
+    private static final Duration TTL = Duration.ofSeconds(60);
+    private static final int MAX_ENTRIES = 5_000;
+
+    private final VehicleService vehicleService;
+    private final ObjectMapper objectMapper;
+
+    public record CachedDetail(VehicleDetailResponseDTO detail, String etag, Instant expiresAt) {}
+
+    private final Map<UUID, CachedDetail> cache = Collections.synchronizedMap(new LruMap<>(MAX_ENTRIES));
+    // Incrémenté à chaque invalidation : un chargement commencé avant une écriture n'est pas mis en cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public Mono<CachedDetail> getDetail(UUID id) {
+        CachedDetail cached = cache.get(id);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return Mono.just(cached);
+        }
+        long version = invalidations.get();
+        return vehicleService.getVehicleDetails(id)
+                .map(detail -> new CachedDetail(detail, computeEtag(detail), Instant.now().plus(TTL)))
+                .doOnNext(entry -> {
+                    if (invalidations.get() == version) {
+                        cache.put(id, entry);
+                    }
+                });
+    }
+
+    @EventListener
+    public void onResourceChanged(ResourceChangedEvent event) {
+        if (event.resourceType() == ResourceType.VEHICLE) {
+            invalidations.incrementAndGet();
+            cache.remove(event.resourceId());
+        }
+    }
+
+    /**
+     * If-None-Match peut contenir "*" ou une liste d'ETags séparés par des virgules.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) value = value.substring(2);
+            if (value.equals("*") || value.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    // ETag fort : empreinte SHA-256 de la représentation JSON (identique octet pour octet => même ETag)
+    private String computeEtag(VehicleDetailResponseDTO detail) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(detail));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (Exception e) {
+            throw new RuntimeException("Erreur lors du calcul de l'ETag du véhicule", e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.project.apirental.modules.vehicle.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.apirental.modules.agency.domain.AgencyEntity;
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.organization.domain.OrganizationEntity;
+import com.project.apirental.modules.organization.repository.OrganizationRepository;
+import com.project.apirental.modules.organization.services.OrganizationService;
+import com.project.apirental.modules.subscription.repository.SubscriptionPlanRepository;
+import com.project.apirental.modules.vehicle.domain.VehicleCategoryEntity;
+import com.project.apirental.modules.vehicle.dto.VehicleRequestDTO;
+import com.project.apirental.shared.dto.ImportReportDTO;
+import com.project.apirental.shared.events.AuditEvent;
+import com.project.apirental.shared.utils.BulkInsert;
+import com.project.apirental.shared.utils.ImportReportBuilder;
+import io.r2dbc.postgresql.codec.Json;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Import en masse de véhicules au format NDJSON (un VehicleRequestDTO par ligne).
+ * Le quota du plan est lu une seule fois, les lignes valides sont insérées par lots
+ * (INSERT multi-lignes) et les compteurs organisation / agence sont mis à jour une fois par lot.
+ */
+@Service
+@RequiredArgsConstructor
+public class VehicleImportService {
+
+    // 22 colonnes par ligne : 250 lignes restent loin de la limite de paramètres PostgreSQL
+    private static final int BATCH_SIZE = 250;
+
+    private static final List<String> COLUMNS = List.of(
+            "id", "organization_id", "agency_id", "category_id", "licence_plate", "vin_number",
+            "brand", "model", "year_production", "places", "kilometrage", "color", "statut", "transmission",
+            "functionalities", "engine_details", "fuel_efficiency", "insurance_details", "description_list", "images_list",
+            "rating", "created_at");
+    private static final List<Class<?>> TYPES = List.of(
+            UUID.class, UUID.class, UUID.class, UUID.class, String.class, String.class,
+            String.class, String.class, LocalDateTime.class, Integer.class, Double.class, String.class, String.class, String.class,
+            Json.class, Json.class, Json.class, Json.class, Json.class, Json.class,
+            Double.class, LocalDateTime.class);
+
+    private final OrganizationRepository organizationRepository;
+    private final OrganizationService organizationService;
+    private final SubscriptionPlanRepository planRepository;
+    private final AgencyRepository agencyRepository;
+    private final CategoryCacheService categoryCacheService;
+    private final VehicleService vehicleService;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    // Ligne analysée : soit des valeurs prêtes à insérer, soit un message d'erreur
+    private record ParsedRow(long line, String reference, UUID agencyId, Object[] values, String error) {}
+
+    public Mono<ImportReportDTO> importVehicles(UUID orgId, Flux<String> lines) {
+        return organizationRepository.findById(Objects.requireNonNull(orgId))
+                .switchIfEmpty(Mono.<OrganizationEntity>error(new RuntimeException("Organisation non trouvée")))
+                .flatMap(org -> Mono.zip(
+                        planRepository.findById(Objects.requireNonNull(org.getSubscriptionPlanId()))
+                                .switchIfEmpty(Mono.error(new RuntimeException("Plan d'abonnement non trouvé"))),
+                        agencyRepository.findAllByOrganizationId(orgId).map(AgencyEntity::getId).collect(Collectors.toSet()),
+                        categoryCacheService.getCategoriesForOrg(orgId).map(VehicleCategoryEntity::getId).collect(Collectors.toSet())
+                ).flatMap(tuple -> {
+                    ImportReportBuilder report = new ImportReportBuilder();
+                    int[] remainingQuota = { Math.max(0, tuple.getT1().getMaxVehicles() - org.getCurrentVehicles()) };
+                    Set<String> seenPlates = new HashSet<>();
+
+                    return lines.index()
+                            .filter(indexed -> !indexed.getT2().isBlank())
+                            .map(indexed -> parse(indexed.getT1() + 1, indexed.getT2(), orgId, tuple.getT2(), tuple.getT3(), seenPlates))
+                            .buffer(BATCH_SIZE)
+                            .concatMap(batch -> insertBatch(orgId, batch, report, remainingQuota))
+                            .then(Mono.fromSupplier(report::build));
+                }))
+                .doOnSuccess(r -> eventPublisher.publishEvent(new AuditEvent("IMPORT_VEHICLES", "VEHICLE",
+                        "Import véhicules org " + orgId + " : " + r.imported() + " importés, " + r.failed() + " rejetés")));
+    }
+
+    private ParsedRow parse(long line, String json, UUID orgId, Set<UUID> agencyIds, Set<UUID> categoryIds, Set<String> seenPlates) {
+        VehicleRequestDTO request;
+        try {
+            request = objectMapper.readValue(json, VehicleRequestDTO.class);
+        } catch (Exception e) {
+            return new ParsedRow(line, null, null, null, "JSON invalide");
+        }
+        String plate = request.licencePlate();
+        if (plate == null || plate.isBlank()) {
+            return new ParsedRow(line, null, null, null, "Plaque d'immatriculation obligatoire");
+        }
+        if (request.agencyId() == null || !agencyIds.contains(request.agencyId())) {
+            return new ParsedRow(line, plate, null, null, "Agence inconnue pour cette organisation");
+        }
+        if (request.categoryId() == null || !categoryIds.contains(request.categoryId())) {
+            return new ParsedRow(line, plate, null, null, "Catégorie inconnue pour cette organisation");
+        }
+        // Longueurs des colonnes VARCHAR : une valeur trop longue rejette la ligne, pas tout le lot
+        if (tooLong(plate, 50) || tooLong(request.vinNumber(), 100) || tooLong(request.brand(), 100)
+                || tooLong(request.model(), 100) || tooLong(request.color(), 50) || tooLong(request.transmission(), 50)) {
+            return new ParsedRow(line, plate, null, null,
+                    "Valeur trop longue (plaque, couleur, transmission : 50 caractères ; VIN, marque, modèle : 100)");
+        }
+        if (!seenPlates.add(plate)) {
+            return new ParsedRow(line, plate, null, null, "Plaque en double dans le fichier");
+        }
+        try {
+            Object[] values = {
+                    UUID.randomUUID(), orgId, request.agencyId(), request.categoryId(), plate, request.vinNumber(),
+                    request.brand(), request.model(), request.yearProduction(), request.places(), request.kilometrage(),
+                    request.color(), "AVAILABLE", request.transmission(),
+                    Json.of(objectMapper.writeValueAsString(request.functionalities())),
+                    Json.of(objectMapper.writeValueAsString(request.engineDetails())),
+                    Json.of(objectMapper.writeValueAsString(request.fuelEfficiency())),
+                    Json.of(objectMapper.writeValueAsString(request.insuranceDetails())),
+                    Json.of(objectMapper.writeValueAsString(request.description())),
+                    Json.of(objectMapper.writeValueAsString(request.images())),
+                    0.0, LocalDateTime.now()
+            };
+            return new ParsedRow(line, plate, request.agencyId(), values, null);
+        } catch (Exception e) {
+            return new ParsedRow(line, plate, null, null, "Erreur de sérialisation des données véhicule");
+        }
+    }
+
+    private Mono<Void> insertBatch(UUID orgId, List<ParsedRow> batch, ImportReportBuilder report, int[] remainingQuota) {
+        List<ParsedRow> accepted = new ArrayList<>();
+        for (ParsedRow row : batch) {
+            report.rowSeen();
+            if (row.error() != null) {
+                report.fail(row.line(), row.reference(), row.error());
+            } else if (remainingQuota[0] <= 0) {
+                report.fail(row.line(), row.reference(), "Quota de véhicules atteint pour votre plan");
+            } else {
+                remainingQuota[0]--;
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) return Mono.empty();
+
+        List<Object[]> values = accepted.stream().map(ParsedRow::values).toList();
+        Mono<Set<UUID>> batchMono = BulkInsert.insertIgnoringConflicts(databaseClient, "vehicles", COLUMNS, TYPES, values)
+                .collect(Collectors.toSet())
+                .flatMap(insertedIds -> {
+                    List<ParsedRow> inserted = accepted.stream()
+                            .filter(row -> insertedIds.contains((UUID) row.values()[0]))
+                            .toList();
+                    if (inserted.isEmpty()) return Mono.just(insertedIds);
+
+                    // Compteurs : une écriture pour l'organisation, une par agence touchée par le lot
+                    Map<UUID, Long> perAgency = inserted.stream()
+                            .collect(Collectors.groupingBy(ParsedRow::agencyId, Collectors.counting()));
+                    return organizationService.updateVehicleCounter(orgId, inserted.size())
+                            .then(Flux.fromIterable(perAgency.entrySet())
+                                    .concatMap(e -> vehicleService.updateAgencyVehicleStats(e.getKey(), e.getValue().intValue()))
+                                    .then())
+                            .thenReturn(insertedIds);
+                });
+
+        // Le rapport n'est alimenté qu'une fois le lot validé
+        return transactionalOperator.transactional(batchMono)
+                .doOnNext(insertedIds -> {
+                    long imported = 0;
+                    for (ParsedRow row : accepted) {
+                        if (insertedIds.contains((UUID) row.values()[0])) {
+                            imported++;
+                        } else {
+                            remainingQuota[0]++;
+                            report.fail(row.line(), row.reference(), "Plaque d'immatriculation ou VIN déjà existant");
+                        }
+                    }
+                    report.imported(imported);
+                })
+                // Lot annulé : ses lignes sont rejetées, les lots précédents restent importés
+                .onErrorResume(e -> {
+                    remainingQuota[0] += accepted.size();
+                    accepted.forEach(row -> report.fail(row.line(), row.reference(), "Lot rejeté par la base de données : " + e.getMessage()));
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static boolean tooLong(String value, int maxLength) {
+        return value != null && value.length() > maxLength;
+    }
+}
@@ -2,7 +2,9 @@ package com.project.apirental.modules.vehicle.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.r2dbc.postgresql.codec.Json;
+import com.project.apirental.modules.agency.domain.AgencyEntity;
 import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.agency.services.AgencyService;
 import com.project.apirental.modules.organization.domain.OrganizationEntity;
 import com.project.apirental.modules.organization.repository.OrganizationRepository;
 import com.project.apirental.modules.organization.services.OrganizationService;
@@ -12,17 +14,24 @@ import com.project.apirental.modules.vehicle.domain.VehicleEntity;
 import com.project.apirental.modules.vehicle.dto.VehicleRequestDTO;
 import com.project.apirental.modules.vehicle.dto.VehicleResponseDTO;
 import com.project.apirental.modules.vehicle.mapper.VehicleMapper;
-import com.project.apirental.modules.vehicle.repository.CategoryRepository;
 import com.project.apirental.modules.vehicle.repository.VehicleRepository;
+import com.project.apirental.modules.vehicle.repository.VehicleSummaryRepository;
+import com.project.apirental.modules.vehicle.dto.VehicleSummaryDTO;
 import com.project.apirental.modules.vehicle.dto.VehicleDetailResponseDTO;
+import com.project.apirental.modules.vehicle.dto.NearbyVehicleDTO;
 import com.project.apirental.modules.vehicle.dto.PricingUpdateDTO;
 import com.project.apirental.modules.vehicle.dto.ScheduleUpdateDTO;
 import com.project.apirental.modules.pricing.domain.PricingEntity;
 import com.project.apirental.modules.pricing.services.PricingService;
 import com.project.apirental.modules.schedule.services.ScheduleService;
 import com.project.apirental.modules.review.services.ReviewService;
+import com.project.apirental.shared.dto.PageResponseDTO;
 import com.project.apirental.shared.enums.ResourceType;
 import com.project.apirental.shared.events.AuditEvent;
+import com.project.apirental.shared.events.ResourceChangedEvent;
+import com.project.apirental.shared.utils.GeoUtils;
+import com.project.apirental.shared.utils.KeysetPagination;
+import com.project.apirental.shared.utils.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
@@ -32,18 +41,31 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class VehicleService {
 
+    // Nombre de véhicules enrichis par fenêtre : 1 requête catégories + 1 requête prix par fenêtre
+    private static final int ENRICH_WINDOW_SIZE = 200;
+
+    // Nombre maximal d'agences candidates examinées par une recherche de proximité
+    private static final int NEARBY_AGENCY_CANDIDATES = 200;
+
     private final VehicleRepository vehicleRepository;
+    private final VehicleSummaryRepository vehicleSummaryRepository;
     private final OrganizationRepository organizationRepository;
     private final OrganizationService organizationService;
     private final SubscriptionPlanRepository planRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryCacheService categoryCacheService;
     private final VehicleMapper vehicleMapper;
     private final AgencyRepository agencyRepository;
     private final ApplicationEventPublisher eventPublisher;
@@ -99,12 +121,9 @@ public class VehicleService {
                                         .build();
 
                                 return vehicleRepository.save(Objects.requireNonNull(vehicle))
-                                        .flatMap(savedVehicle -> {
-                                            org.setCurrentVehicles(org.getCurrentVehicles() + 1);
-                                            return organizationRepository.save(org)
-                                                    .then(updateAgencyVehicleStats(request.agencyId(), 1))
-                                                    .thenReturn(savedVehicle);
-                                        });
+                                        .flatMap(savedVehicle -> organizationService.updateVehicleCounter(orgId, 1)
+                                                .then(updateAgencyVehicleStats(request.agencyId(), 1))
+                                                .thenReturn(savedVehicle));
                             } catch (Exception e) {
                                 return Mono.error(new RuntimeException("Erreur de sérialisation des données véhicule"));
                             }
@@ -114,13 +133,8 @@ public class VehicleService {
                         new AuditEvent("CREATE_VEHICLE", "VEHICLE", "Véhicule ajouté : " + v.licencePlate())));
     }
 
-    private Mono<Void> updateAgencyVehicleStats(UUID agencyId, int increment) {
-        return agencyRepository.findById(Objects.requireNonNull(agencyId))
-                .flatMap(agency -> {
-                    agency.setTotalVehicles(agency.getTotalVehicles() + increment);
-                    agency.setActiveVehicles(agency.getActiveVehicles() + increment);
-                    return agencyRepository.save(agency);
-                }).then();
+    Mono<Void> updateAgencyVehicleStats(UUID agencyId, int increment) {
+        return agencyRepository.incrementVehicleStats(Objects.requireNonNull(agencyId), increment).then();
     }
 
     public Mono<VehicleDetailResponseDTO> getVehicleDetails(UUID id) {
@@ -170,30 +184,135 @@ public class VehicleService {
     }
 
     public Flux<VehicleResponseDTO> getVehiclesByOrg(UUID orgId) {
-        return vehicleRepository.findAllByOrganizationId(orgId).flatMap(this::enrichVehicle);
+        return enrichVehicles(vehicleRepository.findAllByOrganizationId(orgId));
     }
 
     public Flux<VehicleResponseDTO> getVehiclesByAgency(UUID agencyId) {
-        return vehicleRepository.findAllByAgencyId(agencyId).flatMap(this::enrichVehicle);
+        return enrichVehicles(vehicleRepository.findAllByAgencyId(agencyId));
+    }
+
+    // Versions paginées (curseur sur created_at, id)
+    public Mono<PageResponseDTO<VehicleResponseDTO>> getVehiclesPageByOrg(UUID orgId, String cursor, Integer size) {
+        return KeysetPagination.fetch(cursor, size,
+                (cursorDate, cursorId, limit) -> vehicleRepository.findPageByOrganizationId(orgId, cursorDate, cursorId, limit),
+                VehicleEntity::getCreatedAt, VehicleEntity::getId)
+            .flatMap(this::enrichPage);
+    }
+
+    public Mono<PageResponseDTO<VehicleResponseDTO>> getVehiclesPageByAgency(UUID agencyId, String cursor, Integer size) {
+        return KeysetPagination.fetch(cursor, size,
+                (cursorDate, cursorId, limit) -> vehicleRepository.findPageByAgencyId(agencyId, cursorDate, cursorId, limit),
+                VehicleEntity::getCreatedAt, VehicleEntity::getId)
+            .flatMap(this::enrichPage);
+    }
+
+    private Mono<PageResponseDTO<VehicleResponseDTO>> enrichPage(PageResponseDTO<VehicleEntity> page) {
+        return enrichVehicles(Flux.fromIterable(page.items()))
+            .collectList()
+            .map(items -> page.withItems(items));
     }
 
     public Flux<VehicleResponseDTO> getAvailableVehicles() {
-        return vehicleRepository.findAllByStatut("AVAILABLE").flatMap(this::enrichVehicle);
+        return enrichVehicles(vehicleRepository.findAllByStatut("AVAILABLE"));
     }
 
     // NOUVEAU : Service de recherche de véhicules disponibles
     public Flux<VehicleResponseDTO> searchAvailableVehicles(UUID agencyId, UUID categoryId, String keyword) {
-        return vehicleRepository.searchAvailableVehicles(
+        return enrichVehicles(vehicleRepository.searchAvailableVehicles(
                 agencyId,
                 categoryId,
                 keyword != null && !keyword.isBlank() ? keyword : null
-        ).flatMap(this::enrichVehicle);
+        ));
+    }
+
+    // =================================================================================
+    // MODE RÉSUMÉ (cartes de liste, sans décodage JSONB)
+    // =================================================================================
+
+    public Flux<VehicleSummaryDTO> getVehicleSummariesByOrg(UUID orgId) {
+        return vehicleSummaryRepository.findSummaries(orgId, null, null, null, false);
+    }
+
+    public Flux<VehicleSummaryDTO> getVehicleSummariesByAgency(UUID agencyId) {
+        return vehicleSummaryRepository.findSummaries(null, agencyId, null, null, false);
+    }
+
+    public Flux<VehicleSummaryDTO> searchAvailableVehicleSummaries(UUID agencyId, UUID categoryId, String keyword) {
+        return vehicleSummaryRepository.findSummaries(null, agencyId, categoryId,
+                keyword != null && !keyword.isBlank() ? keyword : null, true);
+    }
+
+    // Recherche classée (pertinence puis note) avec tolérance aux fautes de frappe
+    public Flux<VehicleResponseDTO> searchRankedVehicles(UUID agencyId, UUID categoryId, String keyword, Integer limit) {
+        if (keyword == null || keyword.isBlank()) {
+            return Flux.error(new RuntimeException("Le mot-clé de recherche est requis"));
+        }
+        int max = limit == null || limit <= 0 ? KeysetPagination.DEFAULT_PAGE_SIZE : Math.min(limit, KeysetPagination.MAX_PAGE_SIZE);
+        return enrichVehicles(vehicleRepository.searchRankedVehicles(agencyId, categoryId, keyword.trim(), max));
+    }
+
+    /**
+     * Véhicules disponibles autour d'un point : agences présélectionnées par boîte englobante,
+     * distance exacte (haversine) par agence, puis véhicules triés du plus proche au plus lointain.
+     */
+    public Flux<NearbyVehicleDTO> findNearbyVehicles(Double latitude, Double longitude, Double radiusKm,
+                                                     UUID categoryId, Integer limit) {
+        try {
+            GeoUtils.validateCoordinates(latitude, longitude);
+        } catch (RuntimeException e) {
+            return Flux.error(e);
+        }
+        double radius = radiusKm == null || radiusKm <= 0 ? AgencyService.DEFAULT_NEARBY_RADIUS_KM : Math.min(radiusKm, AgencyService.MAX_NEARBY_RADIUS_KM);
+        int max = limit == null || limit <= 0 ? KeysetPagination.DEFAULT_PAGE_SIZE : Math.min(limit, KeysetPagination.MAX_PAGE_SIZE);
+        GeoUtils.BoundingBox box = GeoUtils.boundingBox(latitude, longitude, radius);
+
+        return agencyRepository.findInBoundingBox(box.minLat(), box.maxLat(), box.minLon(), box.maxLon(),
+                        latitude, longitude, NEARBY_AGENCY_CANDIDATES)
+                .filter(agency -> GeoUtils.haversineKm(latitude, longitude, agency.getLatitude(), agency.getLongitude()) <= radius)
+                .collectMap(AgencyEntity::getId)
+                .flatMapMany(agencies -> {
+                    if (agencies.isEmpty()) return Flux.<NearbyVehicleDTO>empty();
+                    Map<UUID, Double> distances = agencies.values().stream().collect(Collectors.toMap(
+                            AgencyEntity::getId,
+                            agency -> GeoUtils.haversineKm(latitude, longitude, agency.getLatitude(), agency.getLongitude())));
+
+                    UUID[] agencyIds = distances.keySet().toArray(UUID[]::new);
+                    Double[] agencyDistances = Arrays.stream(agencyIds).map(distances::get).toArray(Double[]::new);
+
+                    return vehicleRepository.findNearestAvailable(agencyIds, agencyDistances, categoryId, max)
+                            .transform(this::enrichVehicles)
+                            .map(dto -> {
+                                AgencyEntity agency = agencies.get(dto.agencyId());
+                                return new NearbyVehicleDTO(dto, agency.getId(), agency.getName(), agency.getCity(),
+                                        distances.get(agency.getId()));
+                            });
+                });
+    }
+
+    // Recherche sur une période : sans dates, on retombe sur la recherche par statut seul
+    public Flux<VehicleResponseDTO> searchAvailableVehicles(UUID agencyId, UUID categoryId, String keyword,
+                                                            LocalDateTime startDate, LocalDateTime endDate) {
+        if (startDate == null && endDate == null) {
+            return searchAvailableVehicles(agencyId, categoryId, keyword);
+        }
+        if (startDate == null || endDate == null) {
+            return Flux.error(new RuntimeException("Les dates de début et de fin sont requises ensemble"));
+        }
+        if (!startDate.isBefore(endDate)) {
+            return Flux.error(new RuntimeException("La date de fin doit être postérieure à la date de début"));
+        }
+        return enrichVehicles(vehicleRepository.searchAvailableVehiclesForPeriod(
+                agencyId,
+                categoryId,
+                keyword != null && !keyword.isBlank() ? keyword : null,
+                startDate,
+                endDate
+        ));
     }
 
     // NOUVEAU : Lister les véhicules disponibles d'une agence
     public Flux<VehicleResponseDTO> getAvailableVehiclesByAgency(UUID agencyId) {
-        return vehicleRepository.findAllByAgencyIdAndStatut(agencyId, "AVAILABLE")
-                .flatMap(this::enrichVehicle);
+        return enrichVehicles(vehicleRepository.findAllByAgencyIdAndStatut(agencyId, "AVAILABLE"));
     }
 
     public Mono<VehicleResponseDTO> getVehicleById(UUID id) {
@@ -227,8 +346,11 @@ public class VehicleService {
                     } catch (Exception e) {
                         return Mono.error(new RuntimeException("Erreur de sérialisation des données véhicule"));
                     }
-                    return vehicleRepository.save(v);
+                    return vehicleRepository.save(v)
+                        .flatMap(saved -> scheduleService.onResourceAgencyChanged(ResourceType.VEHICLE, saved.getId(), saved.getAgencyId())
+                            .thenReturn(saved));
                 })
+                .flatMap(saved -> publishChanged(saved).thenReturn(saved))
                 .flatMap(this::enrichVehicle);
     }
 
@@ -239,6 +361,7 @@ public class VehicleService {
                     v.setStatut(status.toUpperCase());
                     return vehicleRepository.save(v);
                 })
+                .flatMap(saved -> publishChanged(saved).thenReturn(saved))
                 .flatMap(this::enrichVehicle);
     }
 
@@ -247,11 +370,17 @@ public class VehicleService {
         return vehicleRepository.findById(Objects.requireNonNull(id))
                 .flatMap(v -> vehicleRepository.delete(Objects.requireNonNull(v))
                         .then(organizationService.updateVehicleCounter(v.getOrganizationId(), -1))
-                        .then(updateAgencyVehicleStats(v.getAgencyId(), -1)));
+                        .then(updateAgencyVehicleStats(v.getAgencyId(), -1))
+                        .then(publishChanged(v)));
+    }
+
+    // Publié après validation : un lecteur concurrent ne remet pas l'état précédent en cache
+    private Mono<Void> publishChanged(VehicleEntity vehicle) {
+        return TransactionHooks.afterCommit(() -> eventPublisher.publishEvent(new ResourceChangedEvent(ResourceType.VEHICLE, vehicle.getId())));
     }
 
     private Mono<VehicleResponseDTO> enrichVehicle(VehicleEntity vehicle) {
-        Mono<VehicleCategoryEntity> categoryMono = categoryRepository.findById(Objects.requireNonNull(vehicle.getCategoryId()))
+        Mono<VehicleCategoryEntity> categoryMono = categoryCacheService.getById(Objects.requireNonNull(vehicle.getCategoryId()))
                 .defaultIfEmpty(VehicleCategoryEntity.builder().name("Unknown").build());
 
         Mono<PricingEntity> pricingMono = pricingService.getPricing(ResourceType.VEHICLE, vehicle.getId())
@@ -261,11 +390,42 @@ public class VehicleService {
                 .map(tuple -> vehicleMapper.toDto(vehicle, tuple.getT1(), tuple.getT2()));
     }
 
+    /**
+     * Enrichissement groupé des listes : les véhicules sont traités par fenêtres de
+     * ENRICH_WINDOW_SIZE, chaque fenêtre résolvant ses catégories et ses prix en une
+     * requête IN chacune (au lieu de 2 requêtes par véhicule). L'ordre d'entrée est conservé.
+     */
+    private Flux<VehicleResponseDTO> enrichVehicles(Flux<VehicleEntity> vehicles) {
+        return vehicles
+                .buffer(ENRICH_WINDOW_SIZE)
+                .concatMap(this::enrichWindow);
+    }
+
+    private Flux<VehicleResponseDTO> enrichWindow(List<VehicleEntity> window) {
+        Set<UUID> categoryIds = window.stream()
+                .map(VehicleEntity::getCategoryId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        List<UUID> vehicleIds = window.stream().map(VehicleEntity::getId).toList();
+
+        Mono<Map<UUID, VehicleCategoryEntity>> categoriesMono = categoryIds.isEmpty()
+                ? Mono.just(Collections.emptyMap())
+                : categoryCacheService.getByIds(categoryIds);
+        Mono<Map<UUID, PricingEntity>> pricingsMono = pricingService.getPricings(ResourceType.VEHICLE, vehicleIds);
+
+        return Mono.zip(categoriesMono, pricingsMono)
+                .flatMapMany(tuple -> Flux.fromIterable(window)
+                        .map(vehicle -> vehicleMapper.toDto(
+                                vehicle,
+                                tuple.getT1().getOrDefault(vehicle.getCategoryId(), VehicleCategoryEntity.builder().name("Unknown").build()),
+                                tuple.getT2().getOrDefault(vehicle.getId(), new PricingEntity()))));
+    }
+
     public Flux<VehicleResponseDTO> getVehiclesByOrgAndCategory(UUID orgId, UUID categoryId) {
-        return vehicleRepository.findAllByOrganizationIdAndCategoryId(orgId, categoryId).flatMap(this::enrichVehicle);
+        return enrichVehicles(vehicleRepository.findAllByOrganizationIdAndCategoryId(orgId, categoryId));
     }
 
     public Flux<VehicleResponseDTO> getVehiclesByAgencyAndCategory(UUID agencyId, UUID categoryId) {
-        return vehicleRepository.findAllByAgencyIdAndCategoryId(agencyId, categoryId).flatMap(this::enrichVehicle);
+        return enrichVehicles(vehicleRepository.findAllByAgencyIdAndCategoryId(agencyId, categoryId));
     }
 }
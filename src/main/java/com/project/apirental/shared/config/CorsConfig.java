@@ -25,7 +25,7 @@ public class CorsConfig {
                                                     "https://pwa-easy-rental-org.vercel.app"));
         corsConfig.setMaxAge(3600L);
         corsConfig.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        corsConfig.setAllowedHeaders(Arrays.asList("Content-Type", "Authorization", "x-requested-with"));
+        corsConfig.setAllowedHeaders(Arrays.asList("Content-Type", "Authorization", "x-requested-with", "Idempotency-Key"));
         corsConfig.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
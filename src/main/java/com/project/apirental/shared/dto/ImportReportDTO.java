@@ -0,0 +1,15 @@
+package com.project.apirental.shared.dto;
+
+import java.util.List;
+
+// Rapport d'un import en masse : compteurs globaux + erreurs ligne par ligne (numéro de ligne à partir de 1)
+public record ImportReportDTO(
+    long totalRows,
+    long imported,
+    long failed,
+    List<RowError> errors // Tronquée à ImportReportDTO.MAX_REPORTED_ERRORS entrées
+) {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    public record RowError(long line, String reference, String message) {}
+}
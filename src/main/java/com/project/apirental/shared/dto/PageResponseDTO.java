@@ -0,0 +1,20 @@
+package com.project.apirental.shared.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Page d'une liste paginée par curseur (keyset) : "nextCursor" est à renvoyer tel quel pour la page suivante
+public record PageResponseDTO<T>(
+    List<T> items,
+    int size,
+    boolean hasNext,
+    String nextCursor // Null s'il n'y a plus de page
+) {
+    public <R> PageResponseDTO<R> withItems(List<R> newItems) {
+        return new PageResponseDTO<>(newItems, size, hasNext, nextCursor);
+    }
+
+    public <R> PageResponseDTO<R> map(Function<T, R> mapper) {
+        return withItems(items.stream().map(mapper).toList());
+    }
+}
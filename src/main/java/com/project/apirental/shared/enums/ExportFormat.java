@@ -0,0 +1,6 @@
+package com.project.apirental.shared.enums;
+
+public enum ExportFormat {
+    CSV,     // text/csv, une ligne par enregistrement
+    COLUMNAR // NDJSON, un groupe de lignes par ligne, valeurs rangées par colonne
+}
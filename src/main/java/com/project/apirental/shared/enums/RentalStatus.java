@@ -7,5 +7,6 @@ public enum RentalStatus {
     ONGOING,        // Véhicule récupéré, location en cours
     UNDER_REVIEW,   // Véhicule retourné, en attente de validation agence
     COMPLETED,      // Clôturé (Maintenance post-location déclenchée)
-    CANCELLED       // Annulé par le client ou l'agence
+    CANCELLED,      // Annulé par le client ou l'agence
+    EXPIRED         // PENDING abandonné : paiement initial non reçu avant expiration (RentalHoldSweeper)
 }
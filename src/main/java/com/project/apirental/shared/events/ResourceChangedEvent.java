@@ -0,0 +1,8 @@
+package com.project.apirental.shared.events;
+
+import com.project.apirental.shared.enums.ResourceType;
+
+import java.util.UUID;
+
+// Publié après toute écriture touchant une ressource (fiche, prix, planning, avis) : sert à invalider les caches
+public record ResourceChangedEvent(ResourceType resourceType, UUID resourceId) {}
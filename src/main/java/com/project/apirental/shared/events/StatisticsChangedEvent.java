@@ -0,0 +1,7 @@
+package com.project.apirental.shared.events;
+
+import java.util.UUID;
+
+// Publié après validation d'une écriture visible dans les dashboards (paiement, statut de location).
+// agencyId null : plusieurs agences concernées (traitement par lots), tout est invalidé.
+public record StatisticsChangedEvent(UUID agencyId) {}
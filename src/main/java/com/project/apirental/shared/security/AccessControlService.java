@@ -2,7 +2,7 @@ package com.project.apirental.shared.security;
 
 import com.project.apirental.modules.auth.repository.UserRepository;
 import com.project.apirental.modules.staff.repository.StaffRepository;
-import com.project.apirental.modules.vehicle.repository.CategoryRepository;
+import com.project.apirental.modules.vehicle.services.CategoryCacheService;
 import com.project.apirental.modules.vehicle.repository.VehicleRepository;
 import com.project.apirental.modules.organization.repository.OrganizationRepository;
 import com.project.apirental.modules.agency.repository.AgencyRepository; // Ajouté
@@ -23,7 +23,7 @@ public class AccessControlService {
     private final VehicleRepository vehicleRepository;
     private final AgencyRepository agencyRepository;
     private final OrganizationRepository organizationRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryCacheService categoryCacheService;
 
     public Mono<Boolean> hasPermission(Object orgIdObj, String permissionTag) {
         UUID orgId = (orgIdObj instanceof String) ? UUID.fromString((String) orgIdObj) : (UUID) orgIdObj;
@@ -68,8 +68,9 @@ public class AccessControlService {
         UUID categoryId = (categoryIdObj instanceof String) ? UUID.fromString((String) categoryIdObj)
                 : (UUID) categoryIdObj;
 
-        return categoryRepository.findOrgIdByCategoryId(categoryId)
-                .flatMap(orgId -> {
+        return categoryCacheService.getById(categoryId)
+                .flatMap(category -> {
+                    UUID orgId = category.getOrganizationId();
                     // Si l'orgId est NULL, c'est une catégorie système
                     if (orgId == null) {
                         // Seul l'ADMIN peut modifier/supprimer du système
@@ -0,0 +1,50 @@
+package com.project.apirental.shared.utils;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * INSERT multi-lignes via DatabaseClient : une seule requête par lot au lieu d'un save() par ligne.
+ * Les lignes en conflit (contrainte d'unicité) sont ignorées ; seuls les ids réellement insérés sont renvoyés.
+ */
+public final class BulkInsert {
+
+    private BulkInsert() {
+    }
+
+    /**
+     * @param columns colonnes SQL, la première doit être la clé primaire "id" (UUID)
+     * @param types   type Java de chaque colonne (nécessaire pour lier les valeurs NULL)
+     * @param rows    une valeur par colonne pour chaque ligne
+     */
+    public static Flux<UUID> insertIgnoringConflicts(DatabaseClient databaseClient, String table,
+                                                     List<String> columns, List<Class<?>> types, List<Object[]> rows) {
+        if (rows.isEmpty()) return Flux.empty();
+
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+        for (int r = 0; r < rows.size(); r++) {
+            if (r > 0) sql.append(", ");
+            sql.append('(');
+            for (int c = 0; c < columns.size(); c++) {
+                if (c > 0) sql.append(", ");
+                sql.append(":p").append(r).append('_').append(c);
+            }
+            sql.append(')');
+        }
+        sql.append(" ON CONFLICT DO NOTHING RETURNING id");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int r = 0; r < rows.size(); r++) {
+            Object[] row = rows.get(r);
+            for (int c = 0; c < columns.size(); c++) {
+                String name = "p" + r + "_" + c;
+                spec = row[c] != null ? spec.bind(name, row[c]) : spec.bindNull(name, types.get(c));
+            }
+        }
+        return spec.map((row, meta) -> row.get("id", UUID.class)).all();
+    }
+}
@@ -0,0 +1,55 @@
+package com.project.apirental.shared.utils;
+
+/**
+ * Calculs géographiques sans PostGIS : la base filtre grossièrement par boîte englobante
+ * (index B-tree sur latitude/longitude), la distance exacte est ensuite calculée ici (haversine).
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    private GeoUtils() {
+    }
+
+    public record BoundingBox(double minLat, double maxLat, double minLon, double maxLon) {
+    }
+
+    public static void validateCoordinates(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null
+                || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new RuntimeException("Coordonnées géographiques invalides");
+        }
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Boîte englobant le cercle (centre, rayon). Près des pôles ou de l'antiméridien,
+     * la boîte couvre toutes les longitudes (cas marginal, le filtre exact reste correct).
+     */
+    public static BoundingBox boundingBox(double latitude, double longitude, double radiusKm) {
+        double deltaLat = radiusKm / KM_PER_DEGREE_LAT;
+        double minLat = Math.max(-90, latitude - deltaLat);
+        double maxLat = Math.min(90, latitude + deltaLat);
+
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        if (cosLat <= 1e-9) {
+            return new BoundingBox(minLat, maxLat, -180, 180);
+        }
+        double deltaLon = radiusKm / (KM_PER_DEGREE_LAT * cosLat);
+        double minLon = longitude - deltaLon;
+        double maxLon = longitude + deltaLon;
+        if (minLon < -180 || maxLon > 180) {
+            return new BoundingBox(minLat, maxLat, -180, 180);
+        }
+        return new BoundingBox(minLat, maxLat, minLon, maxLon);
+    }
+}
@@ -0,0 +1,41 @@
+package com.project.apirental.shared.utils;
+
+import com.project.apirental.shared.dto.ImportReportDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accumulateur du rapport d'import. Utilisé séquentiellement par un même pipeline
+ * (lots traités via concatMap), il n'a donc pas besoin de synchronisation.
+ */
+public class ImportReportBuilder {
+
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private final List<ImportReportDTO.RowError> errors = new ArrayList<>();
+
+    public void rowSeen() {
+        totalRows++;
+    }
+
+    public void imported(long count) {
+        imported += count;
+    }
+
+    public void fail(long line, String reference, String message) {
+        failed++;
+        if (errors.size() < ImportReportDTO.MAX_REPORTED_ERRORS) {
+            errors.add(new ImportReportDTO.RowError(line, reference, message));
+        }
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public ImportReportDTO build() {
+        return new ImportReportDTO(totalRows, imported, failed, List.copyOf(errors));
+    }
+}
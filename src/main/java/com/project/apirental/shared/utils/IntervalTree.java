@@ -0,0 +1,168 @@
+package com.project.apirental.shared.utils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Arbre d'intervalles augmenté (treap ordonné sur (début, id), chaque nœud portant la fin maximale de son sous-arbre).
+ * Intervalles semi-ouverts [début, fin) : deux périodes qui se touchent ne se chevauchent pas,
+ * comme le prédicat SQL "start_date &lt; :end AND end_date &gt; :start".
+ * <p>
+ * Insertion / suppression en O(log n), recherche des chevauchements en O(log n + k).
+ * Non thread-safe : la synchronisation est à la charge de l'appelant.
+ */
+public final class IntervalTree<T> {
+
+    private static final class Node<T> {
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final UUID id;
+        final T value;
+        final int priority = ThreadLocalRandom.current().nextInt();
+        LocalDateTime maxEnd;
+        Node<T> left;
+        Node<T> right;
+
+        Node(LocalDateTime start, LocalDateTime end, UUID id, T value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<T> root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Ajoute un intervalle ; un intervalle de même (début, id) est remplacé.
+     */
+    public void insert(LocalDateTime start, LocalDateTime end, UUID id, T value) {
+        remove(start, id);
+        root = insert(root, new Node<>(start, end, id, value));
+        size++;
+    }
+
+    public boolean remove(LocalDateTime start, UUID id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * Valeurs dont l'intervalle chevauche [from, to), triées par date de début.
+     */
+    public List<T> overlapping(LocalDateTime from, LocalDateTime to) {
+        return overlapping(from, to, v -> true);
+    }
+
+    public List<T> overlapping(LocalDateTime from, LocalDateTime to, Predicate<T> filter) {
+        List<T> result = new ArrayList<>();
+        collect(root, from, to, filter, result);
+        return result;
+    }
+
+    public boolean anyOverlap(LocalDateTime from, LocalDateTime to, Predicate<T> filter) {
+        return any(root, from, to, filter);
+    }
+
+    // --- Implémentation ---
+
+    private static int compare(LocalDateTime start, UUID id, Node<?> node) {
+        int c = start.compareTo(node.start);
+        return c != 0 ? c : id.compareTo(node.id);
+    }
+
+    private static <T> void update(Node<T> n) {
+        LocalDateTime max = n.end;
+        if (n.left != null && n.left.maxEnd.isAfter(max)) max = n.left.maxEnd;
+        if (n.right != null && n.right.maxEnd.isAfter(max)) max = n.right.maxEnd;
+        n.maxEnd = max;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> n) {
+        Node<T> l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> n) {
+        Node<T> r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private Node<T> insert(Node<T> n, Node<T> fresh) {
+        if (n == null) return fresh;
+        if (compare(fresh.start, fresh.id, n) < 0) {
+            n.left = insert(n.left, fresh);
+            if (n.left.priority > n.priority) n = rotateRight(n);
+        } else {
+            n.right = insert(n.right, fresh);
+            if (n.right.priority > n.priority) n = rotateLeft(n);
+        }
+        update(n);
+        return n;
+    }
+
+    private Node<T> remove(Node<T> n, LocalDateTime start, UUID id) {
+        if (n == null) return null;
+        int c = compare(start, id, n);
+        if (c < 0) {
+            n.left = remove(n.left, start, id);
+        } else if (c > 0) {
+            n.right = remove(n.right, start, id);
+        } else {
+            size--;
+            return merge(n.left, n.right);
+        }
+        update(n);
+        return n;
+    }
+
+    private Node<T> merge(Node<T> a, Node<T> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private void collect(Node<T> n, LocalDateTime from, LocalDateTime to, Predicate<T> filter, List<T> out) {
+        // Aucun intervalle du sous-arbre ne se termine après "from"
+        if (n == null || !n.maxEnd.isAfter(from)) return;
+        collect(n.left, from, to, filter, out);
+        // Les nœuds suivants commencent tous à partir de n.start
+        if (!n.start.isBefore(to)) return;
+        if (n.end.isAfter(from) && filter.test(n.value)) out.add(n.value);
+        collect(n.right, from, to, filter, out);
+    }
+
+    private boolean any(Node<T> n, LocalDateTime from, LocalDateTime to, Predicate<T> filter) {
+        if (n == null || !n.maxEnd.isAfter(from)) return false;
+        if (any(n.left, from, to, filter)) return true;
+        if (!n.start.isBefore(to)) return false;
+        if (n.end.isAfter(from) && filter.test(n.value)) return true;
+        return any(n.right, from, to, filter);
+    }
+}
@@ -0,0 +1,87 @@
+package com.project.apirental.shared.utils;
+
+import com.project.apirental.shared.dto.PageResponseDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Pagination par curseur sur le couple (date, id), trié du plus récent au plus ancien.
+ * Le curseur est opaque pour le client (Base64 de "date|id") et pointe sur le dernier
+ * élément de la page précédente : les requêtes filtrent avec (date, id) < (:cursorDate, :cursorId),
+ * ce qui reste un simple parcours d'index quelle que soit la profondeur de la page.
+ */
+public final class KeysetPagination {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private KeysetPagination() {
+    }
+
+    /**
+     * Requête de page : reçoit la position du curseur (null pour la première page) et la limite.
+     */
+    @FunctionalInterface
+    public interface PageQuery<E> {
+        Flux<E> fetch(LocalDateTime cursorDate, UUID cursorId, int limit);
+    }
+
+    public record Cursor(LocalDateTime date, UUID id) {
+    }
+
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) return DEFAULT_PAGE_SIZE;
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    public static String encode(LocalDateTime date, UUID id) {
+        String raw = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (Exception e) {
+            throw new RuntimeException("Curseur de pagination invalide");
+        }
+    }
+
+    /**
+     * Exécute la requête avec limit + 1 pour savoir s'il existe une page suivante,
+     * puis construit le curseur à partir du dernier élément conservé.
+     */
+    public static <E> Mono<PageResponseDTO<E>> fetch(String cursor, Integer size, PageQuery<E> query,
+                                                      Function<E, LocalDateTime> dateOf, Function<E, UUID> idOf) {
+        final Cursor position;
+        try {
+            position = decode(cursor);
+        } catch (RuntimeException e) {
+            return Mono.error(e);
+        }
+        int limit = clampSize(size);
+
+        return query.fetch(position != null ? position.date() : null, position != null ? position.id() : null, limit + 1)
+            .collectList()
+            .map(rows -> {
+                boolean hasNext = rows.size() > limit;
+                List<E> items = hasNext ? rows.subList(0, limit) : rows;
+                String next = null;
+                if (hasNext) {
+                    E last = items.get(items.size() - 1);
+                    next = encode(dateOf.apply(last), idOf.apply(last));
+                }
+                return new PageResponseDTO<>(items, limit, hasNext, next);
+            });
+    }
+}
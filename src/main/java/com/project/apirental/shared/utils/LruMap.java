@@ -0,0 +1,23 @@
+package com.project.apirental.shared.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LinkedHashMap en ordre d'accès : l'entrée la moins récemment utilisée est évincée au-delà de la capacité.
+ * Non thread-safe : à envelopper avec Collections.synchronizedMap pour un cache partagé.
+ */
+public class LruMap<K, V> extends LinkedHashMap<K, V> {
+
+    private final int capacity;
+
+    public LruMap(int capacity) {
+        super(16, 0.75f, true);
+        this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > capacity;
+    }
+}
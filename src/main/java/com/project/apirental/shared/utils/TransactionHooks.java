@@ -0,0 +1,34 @@
+package com.project.apirental.shared.utils;
+
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Actions différées à la fin de la transaction réactive en cours.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    /**
+     * Exécute l'action après le commit de la transaction réactive en cours (immédiatement hors transaction),
+     * pour qu'un état mémoire ou un événement ne reflète jamais une écriture annulée.
+     */
+    public static Mono<Void> afterCommit(Runnable action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+            .flatMap(tsm -> {
+                if (!tsm.isSynchronizationActive()) return Mono.fromRunnable(action);
+                tsm.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return Mono.fromRunnable(action);
+                    }
+                });
+                return Mono.<Void>empty();
+            })
+            .onErrorResume(NoTransactionException.class, e -> Mono.fromRunnable(action))
+            .then();
+    }
+}
@@ -0,0 +1,162 @@
+package com.project.apirental.shared.utils;
+
+import java.text.Normalizer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Horaires d'ouverture d'une agence, lus depuis le texte libre AgencyEntity.workingHours.
+ * Formats reconnus (jours en français ou en anglais, complets ou abrégés) :
+ * "Lundi-Dimanche: 08h-20h", "Lun-Ven 8h30-18h; Sam 9h-13h", "Lundi: 08:00-12:00, 14:00-18:00".
+ * Un texte vide ou illisible, ou is24Hours, donne une agence toujours ouverte : on ne bloque pas
+ * les réservations sur un horaire mal saisi.
+ */
+public final class WorkingHours {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // Plus longue recherche d'ouverture : une semaine complète
+    private static final int SEARCH_DAYS = 8;
+
+    private static final Pattern TIME_RANGE = Pattern.compile(
+            "(\\d{1,2})\\s*[h:]\\s*(\\d{2})?\\s*(?:-|–|à|a|to)\\s*(\\d{1,2})\\s*[h:]\\s*(\\d{2})?");
+
+    private static final Map<String, DayOfWeek> DAY_PREFIXES = Map.ofEntries(
+            Map.entry("lun", DayOfWeek.MONDAY), Map.entry("mon", DayOfWeek.MONDAY),
+            Map.entry("mar", DayOfWeek.TUESDAY), Map.entry("tue", DayOfWeek.TUESDAY),
+            Map.entry("mer", DayOfWeek.WEDNESDAY), Map.entry("wed", DayOfWeek.WEDNESDAY),
+            Map.entry("jeu", DayOfWeek.THURSDAY), Map.entry("thu", DayOfWeek.THURSDAY),
+            Map.entry("ven", DayOfWeek.FRIDAY), Map.entry("fri", DayOfWeek.FRIDAY),
+            Map.entry("sam", DayOfWeek.SATURDAY), Map.entry("sat", DayOfWeek.SATURDAY),
+            Map.entry("dim", DayOfWeek.SUNDAY), Map.entry("sun", DayOfWeek.SUNDAY));
+
+    private record Window(int startMinute, int endMinute) {}
+
+    private static final WorkingHours ALWAYS_OPEN = new WorkingHours(null);
+
+    // null = toujours ouvert
+    private final Map<DayOfWeek, List<Window>> windows;
+
+    private WorkingHours(Map<DayOfWeek, List<Window>> windows) {
+        this.windows = windows;
+    }
+
+    public static WorkingHours parse(String text, Boolean is24Hours) {
+        if (Boolean.TRUE.equals(is24Hours) || text == null || text.isBlank()) return ALWAYS_OPEN;
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        Map<DayOfWeek, List<Window>> parsed = new EnumMap<>(DayOfWeek.class);
+        Set<DayOfWeek> days = EnumSet.allOf(DayOfWeek.class);
+        Matcher m = TIME_RANGE.matcher(normalized);
+        int previousEnd = 0;
+        while (m.find()) {
+            // Un segment sans jours reprend les jours du segment précédent ("Lundi: 8h-12h, 14h-18h")
+            Set<DayOfWeek> segmentDays = parseDays(normalized.substring(previousEnd, m.start()));
+            if (!segmentDays.isEmpty()) days = segmentDays;
+            previousEnd = m.end();
+
+            int start = minutes(m.group(1), m.group(2));
+            int end = minutes(m.group(3), m.group(4));
+            if (start < 0 || end < 0) continue;
+            for (DayOfWeek day : days) {
+                if (end > start) {
+                    addWindow(parsed, day, new Window(start, end));
+                } else {
+                    // Ouverture de nuit (22h-06h) : coupée à minuit
+                    addWindow(parsed, day, new Window(start, MINUTES_PER_DAY));
+                    if (end > 0) addWindow(parsed, day.plus(1), new Window(0, end));
+                }
+            }
+        }
+        if (parsed.isEmpty()) return ALWAYS_OPEN;
+        parsed.values().forEach(list -> list.sort(Comparator.comparingInt(Window::startMinute)));
+        return new WorkingHours(parsed);
+    }
+
+    public boolean isAlwaysOpen() {
+        return windows == null;
+    }
+
+    /**
+     * Premier instant >= t où l'agence est ouverte, ou null si elle ne rouvre pas dans la semaine.
+     */
+    public LocalDateTime nextOpening(LocalDateTime t) {
+        if (windows == null) return t;
+        for (int d = 0; d < SEARCH_DAYS; d++) {
+            LocalDate day = t.toLocalDate().plusDays(d);
+            for (Window w : windows.getOrDefault(day.getDayOfWeek(), List.of())) {
+                LocalDateTime start = day.atStartOfDay().plusMinutes(w.startMinute());
+                LocalDateTime end = day.atStartOfDay().plusMinutes(w.endMinute());
+                if (end.isAfter(t)) return start.isAfter(t) ? start : t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Dernier instant <= t où l'agence est ouverte, ou null si elle n'a pas ouvert dans la semaine.
+     */
+    public LocalDateTime lastClosing(LocalDateTime t) {
+        if (windows == null) return t;
+        for (int d = 0; d < SEARCH_DAYS; d++) {
+            LocalDate day = t.toLocalDate().minusDays(d);
+            List<Window> dayWindows = windows.getOrDefault(day.getDayOfWeek(), List.of());
+            for (int i = dayWindows.size() - 1; i >= 0; i--) {
+                Window w = dayWindows.get(i);
+                LocalDateTime start = day.atStartOfDay().plusMinutes(w.startMinute());
+                LocalDateTime end = day.atStartOfDay().plusMinutes(w.endMinute());
+                if (start.isBefore(t)) return end.isBefore(t) ? end : t;
+            }
+        }
+        return null;
+    }
+
+    // --- Parsing ---
+
+    private static Set<DayOfWeek> parseDays(String text) {
+        List<DayOfWeek> found = new ArrayList<>();
+        for (String token : text.split("[^a-z]+")) {
+            if (token.length() < 3) continue;
+            DayOfWeek day = DAY_PREFIXES.get(token.substring(0, 3));
+            if (day != null) found.add(day);
+        }
+        if (found.isEmpty()) return EnumSet.noneOf(DayOfWeek.class);
+
+        boolean isRange = found.size() == 2 && (text.contains("-") || text.matches(".*\\b(au|a|to)\\b.*"));
+        if (!isRange) return EnumSet.copyOf(found);
+
+        // Plage "Lundi-Vendredi", éventuellement à cheval sur la semaine ("Samedi-Lundi")
+        Set<DayOfWeek> range = EnumSet.noneOf(DayOfWeek.class);
+        DayOfWeek day = found.get(0);
+        range.add(day);
+        while (day != found.get(1)) {
+            day = day.plus(1);
+            range.add(day);
+        }
+        return range;
+    }
+
+    private static int minutes(String hours, String mins) {
+        int h = Integer.parseInt(hours);
+        int m = mins != null ? Integer.parseInt(mins) : 0;
+        if (h > 24 || m > 59 || (h == 24 && m > 0)) return -1;
+        return h * 60 + m;
+    }
+
+    private static void addWindow(Map<DayOfWeek, List<Window>> map, DayOfWeek day, Window window) {
+        map.computeIfAbsent(day, d -> new ArrayList<>()).add(window);
+    }
+}
@@ -0,0 +1,204 @@
+package com.project.apirental.modules.pricing.services;
+
+import com.project.apirental.modules.agency.domain.AgencyEntity;
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.pricing.domain.PricingEntity;
+import com.project.apirental.modules.pricing.domain.PricingRuleEntity;
+import com.project.apirental.modules.pricing.dto.QuoteDTO;
+import com.project.apirental.modules.pricing.dto.QuoteRequestDTO;
+import com.project.apirental.modules.pricing.repository.PricingRepository;
+import com.project.apirental.modules.pricing.repository.PricingRuleRepository;
+import com.project.apirental.shared.enums.RentalType;
+import com.project.apirental.shared.enums.ResourceType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PricingQuoteServiceTest {
+
+    private static final UUID ORG_ID = UUID.randomUUID();
+    private static final UUID AGENCY_ID = UUID.randomUUID();
+    private static final UUID VEHICLE_ID = UUID.randomUUID();
+    private static final UUID DRIVER_ID = UUID.randomUUID();
+
+    // Vendredi 4 juillet 2025
+    private static final LocalDateTime FRIDAY = LocalDateTime.of(2025, 7, 4, 10, 0);
+
+    private final PricingRepository pricingRepository = mock(PricingRepository.class);
+    private final PricingRuleRepository pricingRuleRepository = mock(PricingRuleRepository.class);
+    private final AgencyRepository agencyRepository = mock(AgencyRepository.class);
+
+    private final List<PricingEntity> prices = new ArrayList<>();
+    private final List<PricingRuleEntity> rules = new ArrayList<>();
+    private AgencyEntity agency;
+
+    private PricingQuoteService service;
+
+    @BeforeEach
+    void setUp() {
+        agency = AgencyEntity.builder().id(AGENCY_ID).organizationId(ORG_ID).build();
+        when(pricingRepository.findAllByOrganizationId(ORG_ID)).thenAnswer(i -> Flux.fromIterable(prices));
+        when(pricingRuleRepository.findAllByOrganizationId(ORG_ID)).thenAnswer(i -> Flux.fromIterable(rules));
+        when(agencyRepository.findAllByOrganizationId(ORG_ID)).thenAnswer(i -> Flux.just(agency));
+        service = new PricingQuoteService(pricingRepository, pricingRuleRepository, agencyRepository, mock(DatabaseClient.class));
+    }
+
+    @Test
+    void weekendAndSeasonalRulesStackPerCalendarDay() {
+        price(ResourceType.VEHICLE, VEHICLE_ID, "10000", "1000");
+        rule("WEEKEND", "1.5", null, null, null);
+        rule("SEASONAL", "1.2", null, LocalDate.of(2025, 7, 1), LocalDate.of(2025, 8, 31));
+
+        // Vendredi, samedi, dimanche : 12 000 + 18 000 + 18 000
+        QuoteDTO quote = quote(new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY, FRIDAY.plusDays(3), RentalType.DAILY));
+
+        assertThat(quote.duration()).isEqualTo(3);
+        assertThat(quote.baseAmount()).isEqualByComparingTo("48000");
+        assertThat(quote.commissionAmount()).isEqualByComparingTo("480");
+        assertThat(quote.depositAmount()).isEqualByComparingTo("4800");
+        assertThat(quote.totalAmount()).isEqualByComparingTo("53280");
+        assertThat(quote.driverUnitPrice()).isNull();
+    }
+
+    @Test
+    void seasonalRuleOnlyAppliesInsideItsInclusivePeriod() {
+        price(ResourceType.VEHICLE, VEHICLE_ID, "10000", "1000");
+        // Du mercredi 2 au jeudi 3 juillet inclus
+        rule("SEASONAL", "2", null, LocalDate.of(2025, 7, 2), LocalDate.of(2025, 7, 3));
+
+        QuoteDTO quote = quote(new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY.minusDays(3), FRIDAY, RentalType.DAILY));
+
+        // Mardi 10 000 + mercredi 20 000 + jeudi 20 000
+        assertThat(quote.baseAmount()).isEqualByComparingTo("50000");
+    }
+
+    @Test
+    void rulesAreScopedToAgencyAndResourceType() {
+        price(ResourceType.VEHICLE, VEHICLE_ID, "10000", "1000");
+        price(ResourceType.DRIVER, DRIVER_ID, "5000", "500");
+        rule("WEEKEND", "2", ResourceType.DRIVER, null, null);
+        PricingRuleEntity otherAgency = rule("WEEKEND", "3", null, null, null);
+        otherAgency.setAgencyId(UUID.randomUUID());
+
+        // Samedi seul : véhicule 10 000, chauffeur 5 000 x 2
+        QuoteDTO quote = quote(new QuoteRequestDTO(VEHICLE_ID, DRIVER_ID, FRIDAY.plusDays(1), FRIDAY.plusDays(2), RentalType.DAILY));
+
+        assertThat(quote.driverUnitPrice()).isEqualByComparingTo("5000");
+        assertThat(quote.baseAmount()).isEqualByComparingTo("20000");
+    }
+
+    @Test
+    void noDepositWhenAgencyDoesNotRequireIt() {
+        price(ResourceType.VEHICLE, VEHICLE_ID, "10000", "1000");
+        agency.setRequireDeposit(false);
+        agency.setDepositPercentage(30.0);
+
+        QuoteDTO quote = quote(new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY.minusDays(2), FRIDAY, RentalType.DAILY));
+
+        assertThat(quote.baseAmount()).isEqualByComparingTo("20000");
+        assertThat(quote.depositAmount()).isEqualByComparingTo("0");
+        assertThat(quote.totalAmount()).isEqualByComparingTo("20200");
+    }
+
+    @Test
+    void amountsAreRoundedHalfUpToCents() {
+        price(ResourceType.VEHICLE, VEHICLE_ID, "10000", "1234.565");
+        agency.setDepositPercentage(15.0);
+
+        // 30 minutes : une heure minimum facturée
+        QuoteDTO quote = quote(new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY, FRIDAY.plusMinutes(30), RentalType.HOURLY));
+
+        assertThat(quote.duration()).isEqualTo(1);
+        assertThat(quote.baseAmount()).isEqualTo(new BigDecimal("1234.57"));
+        assertThat(quote.commissionAmount()).isEqualTo(new BigDecimal("12.35"));
+        assertThat(quote.depositAmount()).isEqualTo(new BigDecimal("185.19"));
+        assertThat(quote.totalAmount()).isEqualTo(new BigDecimal("1432.11"));
+    }
+
+    @Test
+    void hourlyUnitsAreSplitAtMidnight() {
+        price(ResourceType.VEHICLE, VEHICLE_ID, "10000", "1000");
+        rule("WEEKEND", "2", null, null, null);
+
+        // Vendredi 22h30 → samedi 2h30 : 22h30 et 23h30 en semaine, 0h30 et 1h30 le samedi
+        QuoteDTO quote = quote(new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY.withHour(22).withMinute(30),
+            FRIDAY.plusDays(1).withHour(2).withMinute(30), RentalType.HOURLY));
+
+        assertThat(quote.duration()).isEqualTo(4);
+        assertThat(quote.baseAmount()).isEqualByComparingTo("6000");
+    }
+
+    @Test
+    void periodLongerThanTheMaximumIsRejected() {
+        price(ResourceType.VEHICLE, VEHICLE_ID, "10000", "1000");
+
+        StepVerifier.create(service.quote(ORG_ID, AGENCY_ID,
+                new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY, FRIDAY.plusYears(75), RentalType.HOURLY)))
+            .expectErrorMessage("La période demandée ne doit pas dépasser 366 jours.")
+            .verify();
+
+        // Exactement la limite : accepté
+        QuoteDTO quote = quote(new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY, FRIDAY.plusDays(366), RentalType.HOURLY));
+        assertThat(quote.duration()).isEqualTo(366 * 24);
+        assertThat(quote.baseAmount()).isEqualByComparingTo("8784000");
+    }
+
+    @Test
+    void invalidPeriodOrMissingPriceIsRejected() {
+        StepVerifier.create(service.quote(ORG_ID, AGENCY_ID,
+                new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY, FRIDAY.minusDays(1), RentalType.DAILY)))
+            .expectErrorMessage("La date de fin doit être postérieure à la date de début.")
+            .verify();
+        StepVerifier.create(service.quote(ORG_ID, AGENCY_ID,
+                new QuoteRequestDTO(VEHICLE_ID, null, FRIDAY, FRIDAY.plusDays(1), RentalType.DAILY)))
+            .expectErrorMessage("Aucun tarif défini pour ce véhicule.")
+            .verify();
+    }
+
+    // --- Données ---
+
+    private QuoteDTO quote(QuoteRequestDTO request) {
+        QuoteDTO quote = service.quote(ORG_ID, AGENCY_ID, request).block();
+        assertThat(quote).isNotNull();
+        assertThat(quote.error()).isNull();
+        return quote;
+    }
+
+    private void price(ResourceType type, UUID resourceId, String perDay, String perHour) {
+        prices.add(PricingEntity.builder()
+            .id(UUID.randomUUID())
+            .organizationId(ORG_ID)
+            .resourceType(type)
+            .resourceId(resourceId)
+            .pricePerDay(new BigDecimal(perDay))
+            .pricePerHour(new BigDecimal(perHour))
+            .build());
+    }
+
+    private PricingRuleEntity rule(String ruleType, String multiplier, ResourceType type, LocalDate start, LocalDate end) {
+        PricingRuleEntity rule = PricingRuleEntity.builder()
+            .id(UUID.randomUUID())
+            .organizationId(ORG_ID)
+            .resourceType(type)
+            .ruleType(ruleType)
+            .multiplier(new BigDecimal(multiplier))
+            .startDate(start)
+            .endDate(end)
+            .build();
+        rules.add(rule);
+        return rule;
+    }
+}
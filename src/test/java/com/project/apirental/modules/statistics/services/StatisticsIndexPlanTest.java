@@ -0,0 +1,124 @@
+package com.project.apirental.modules.statistics.services;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans d'exécution des requêtes de statistiques sur le schéma Liquibase (changeset 20).
+ * Ignoré si Docker n'est pas disponible.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class StatisticsIndexPlanTest {
+
+    // 2 000 agences, 100 000 locations réparties sur environ trois ans, un paiement par location
+    private static final String AGENCY = "'00000000-0000-0000-0000-000000000007'";
+    private static final String OTHER_AGENCY = "'00000000-0000-0000-0000-000000000042'";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void migrateAndSeed() throws Exception {
+        connection = DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        new Liquibase("db/changelog/db.changelog-master.xml", new ClassLoaderResourceAccessor(), database)
+            .update(new Contexts(), new LabelExpression());
+
+        try (Statement st = connection.createStatement()) {
+            // Triggers des agrégats et clés étrangères désactivés le temps du chargement
+            st.execute("SET session_replication_role = replica");
+            st.execute("""
+                INSERT INTO rentals (id, agency_id, vehicle_id, start_date, end_date, status, rental_type, created_at)
+                SELECT gen_random_uuid(),
+                       ('00000000-0000-0000-0000-' || lpad((g % 2000)::text, 12, '0'))::uuid,
+                       ('00000000-0000-0000-0001-' || lpad((g % 5000)::text, 12, '0'))::uuid,
+                       ts, ts + INTERVAL '1 day', 'COMPLETED', 'DAILY', ts
+                FROM (SELECT g, TIMESTAMP '2023-01-01' + (g % 1000) * INTERVAL '1 day' AS ts
+                      FROM generate_series(1, 100000) g) s
+            """);
+            st.execute("""
+                INSERT INTO payments (id, rental_id, amount, payment_method, transaction_date)
+                SELECT gen_random_uuid(), r.id, 1000, 'CASH', r.created_at FROM rentals r
+            """);
+            st.execute("SET session_replication_role = DEFAULT");
+            st.execute("VACUUM ANALYZE rentals");
+            st.execute("VACUUM ANALYZE payments");
+        }
+    }
+
+    @AfterAll
+    static void close() throws Exception {
+        if (connection != null) connection.close();
+    }
+
+    @Test
+    void topVehiclesRankingUsesAgencyCreatedStatusIndex() throws Exception {
+        // Même requête que StatisticsService.getAgenciesStats (véhicules les plus loués)
+        String plan = explain("""
+            SELECT agency_id, name, count FROM (
+                SELECT r.agency_id, v.brand || ' ' || v.model AS name, COUNT(*) AS count,
+                       ROW_NUMBER() OVER (PARTITION BY r.agency_id ORDER BY COUNT(*) DESC) AS rn
+                FROM rentals r JOIN vehicles v ON r.vehicle_id = v.id
+                WHERE r.agency_id IN (%s, %s) AND r.created_at >= '2024-01-01' AND r.created_at < '2025-01-01'
+                GROUP BY r.agency_id, v.brand, v.model
+            ) ranked
+            WHERE rn <= 5
+            ORDER BY agency_id, count DESC
+            """.formatted(AGENCY, OTHER_AGENCY));
+
+        assertThat(plan).contains("idx_rentals_agency_created_status");
+    }
+
+    @Test
+    void agencyPaymentsUsePaymentsCoveringIndex() throws Exception {
+        // Même requête que PaymentRepository.findAllByAgencyId
+        String plan = explain("""
+            SELECT p.*
+            FROM payments p
+            JOIN rentals r ON p.rental_id = r.id
+            WHERE r.agency_id = %s
+            ORDER BY p.transaction_date DESC
+            """.formatted(AGENCY));
+
+        assertThat(plan).contains("idx_payments_rental_date");
+    }
+
+    @Test
+    void paymentsOfARentalAreReadFromTheCoveringIndexOnly() throws Exception {
+        String plan = explain("""
+            SELECT transaction_date, amount FROM payments
+            WHERE rental_id = (SELECT id FROM rentals LIMIT 1)
+            ORDER BY transaction_date
+            """);
+
+        assertThat(plan).contains("Index Only Scan using idx_payments_rental_date");
+    }
+
+    private static String explain(String sql) throws Exception {
+        StringBuilder plan = new StringBuilder();
+        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) plan.append(rs.getString(1)).append('\n');
+        }
+        return plan.toString();
+    }
+}
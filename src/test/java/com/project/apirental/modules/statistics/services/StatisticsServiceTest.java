@@ -0,0 +1,112 @@
+package com.project.apirental.modules.statistics.services;
+
+import com.project.apirental.modules.agency.domain.AgencyEntity;
+import com.project.apirental.modules.agency.repository.AgencyRepository;
+import com.project.apirental.modules.statistics.dto.AgencyStatsDTO;
+import com.project.apirental.modules.statistics.dto.OrgStatsDTO;
+import io.r2dbc.spi.Row;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Les statistiques d'une organisation doivent coûter un nombre fixe de requêtes, quel que soit
+ * le nombre d'agences (pas de N+1).
+ */
+class StatisticsServiceTest {
+
+    private final DatabaseClient databaseClient = mock(DatabaseClient.class);
+    private final AgencyRepository agencyRepository = mock(AgencyRepository.class);
+    private final StatisticsService service = new StatisticsService(databaseClient, agencyRepository);
+
+    private final List<String> statements = new ArrayList<>();
+    private List<AgencyEntity> agencies = List.of();
+
+    @Test
+    void organizationStatsUseThreeStatementsWhateverTheNumberOfAgencies() {
+        for (int n : new int[]{ 1, 10, 50 }) {
+            statements.clear();
+            OrgStatsDTO stats = organizationStats(n);
+
+            assertThat(statements).as("%d agences", n).hasSize(3);
+            assertThat(stats.agenciesBreakdown()).hasSize(n);
+        }
+    }
+
+    @Test
+    void groupedRowsAreDispatchedToTheirAgency() {
+        OrgStatsDTO stats = organizationStats(5);
+
+        // Agence i : revenu i x 100, i locations terminées
+        for (int i = 0; i < 5; i++) {
+            AgencyStatsDTO agency = stats.agenciesBreakdown().get(i);
+            assertThat(agency.agencyName()).isEqualTo("Agence " + i);
+            assertThat(agency.yearlyRevenue()).isEqualByComparingTo(BigDecimal.valueOf(i * 100L));
+            assertThat(agency.completedRentals()).isEqualTo(i);
+            assertThat(agency.totalRentals()).isEqualTo(i);
+        }
+        assertThat(stats.globalRevenue()).isEqualByComparingTo("1000");
+        assertThat(stats.bestPerformingAgency().agencyName()).isEqualTo("Agence 4");
+    }
+
+    // --- Données ---
+
+    private OrgStatsDTO organizationStats(int agencyCount) {
+        UUID orgId = UUID.randomUUID();
+        agencies = IntStream.range(0, agencyCount)
+            .mapToObj(i -> AgencyEntity.builder().id(UUID.randomUUID()).organizationId(orgId).name("Agence " + i).build())
+            .toList();
+        when(agencyRepository.findAllByOrganizationId(orgId)).thenReturn(Flux.fromIterable(agencies));
+        when(databaseClient.sql(anyString())).thenAnswer(invocation -> statement(invocation.getArgument(0)));
+        return service.getOrganizationStats(orgId, 2025).block();
+    }
+
+    // Requête simulée : les lignes renvoyées dépendent de la table interrogée
+    @SuppressWarnings("unchecked")
+    private DatabaseClient.GenericExecuteSpec statement(String sql) {
+        statements.add(sql);
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < agencies.size(); i++) {
+            if (sql.contains("agency_monthly_revenue")) {
+                rows.add(row(agencies.get(i).getId(), "revenue", BigDecimal.valueOf(i * 100L), null));
+            } else if (sql.contains("agency_monthly_rentals")) {
+                rows.add(row(agencies.get(i).getId(), "count", (long) i, "COMPLETED"));
+            }
+        }
+        DatabaseClient.GenericExecuteSpec spec = mock(DatabaseClient.GenericExecuteSpec.class);
+        when(spec.bind(anyString(), any())).thenReturn(spec);
+        when(spec.map(any(Function.class))).thenAnswer(invocation -> {
+            Function<Row, Object> mapper = invocation.getArgument(0);
+            RowsFetchSpec<Object> fetch = mock(RowsFetchSpec.class);
+            when(fetch.all()).thenAnswer(i -> Flux.fromIterable(rows).map(mapper));
+            return fetch;
+        });
+        return spec;
+    }
+
+    private static Row row(UUID agencyId, String valueColumn, Object value, String status) {
+        Row row = mock(Row.class);
+        when(row.get("agency_id", UUID.class)).thenReturn(agencyId);
+        when(row.get("status", String.class)).thenReturn(status);
+        if (value instanceof BigDecimal amount) {
+            when(row.get(valueColumn, BigDecimal.class)).thenReturn(amount);
+        } else {
+            when(row.get(valueColumn, Long.class)).thenReturn((Long) value);
+        }
+        return row;
+    }
+}
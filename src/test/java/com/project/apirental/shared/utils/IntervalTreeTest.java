@@ -0,0 +1,116 @@
+package com.project.apirental.shared.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntervalTreeTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static LocalDateTime h(int hours) {
+        return T0.plusHours(hours);
+    }
+
+    @Test
+    void overlapIsHalfOpen() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(h(10), h(12), UUID.randomUUID(), "a");
+
+        // Périodes qui se touchent : pas de chevauchement
+        assertThat(tree.overlapping(h(12), h(14))).isEmpty();
+        assertThat(tree.overlapping(h(8), h(10))).isEmpty();
+        assertThat(tree.anyOverlap(h(12), h(14), v -> true)).isFalse();
+
+        assertThat(tree.overlapping(h(11), h(13))).containsExactly("a");
+        assertThat(tree.overlapping(h(9), h(11))).containsExactly("a");
+        assertThat(tree.overlapping(h(10), h(12))).containsExactly("a");
+        assertThat(tree.anyOverlap(h(11), h(13), v -> true)).isTrue();
+    }
+
+    @Test
+    void sameStartWithDifferentIdsAreKept() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        tree.insert(h(10), h(12), first, "a");
+        tree.insert(h(10), h(20), second, "b");
+
+        assertThat(tree.size()).isEqualTo(2);
+        assertThat(tree.overlapping(h(11), h(12))).containsExactlyInAnyOrder("a", "b");
+        assertThat(tree.overlapping(h(15), h(16))).containsExactly("b");
+
+        // Même (début, id) : remplacement
+        tree.insert(h(10), h(14), first, "a2");
+        assertThat(tree.size()).isEqualTo(2);
+        assertThat(tree.overlapping(h(11), h(12))).containsExactlyInAnyOrder("a2", "b");
+        assertThat(tree.overlapping(h(13), h(14))).containsExactlyInAnyOrder("a2", "b");
+    }
+
+    @Test
+    void removeReportsWhetherAnIntervalWasRemoved() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        UUID id = UUID.randomUUID();
+        tree.insert(h(10), h(12), id, "a");
+
+        assertThat(tree.remove(h(10), UUID.randomUUID())).isFalse();
+        assertThat(tree.remove(h(11), id)).isFalse();
+        assertThat(tree.remove(h(10), id)).isTrue();
+        assertThat(tree.remove(h(10), id)).isFalse();
+        assertThat(tree.size()).isZero();
+        assertThat(tree.overlapping(h(0), h(100))).isEmpty();
+    }
+
+    @Test
+    void removingTheLongestIntervalUpdatesMaxEnd() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        UUID longId = UUID.randomUUID();
+        tree.insert(h(0), h(100), longId, "long");
+        for (int i = 1; i <= 20; i++) {
+            tree.insert(h(i), h(i + 1), UUID.randomUUID(), "short" + i);
+        }
+        assertThat(tree.overlapping(h(50), h(60))).containsExactly("long");
+
+        tree.remove(h(0), longId);
+
+        assertThat(tree.overlapping(h(50), h(60))).isEmpty();
+        assertThat(tree.anyOverlap(h(50), h(60), v -> true)).isFalse();
+        assertThat(tree.overlapping(h(5), h(7))).containsExactly("short5", "short6");
+    }
+
+    @Test
+    void matchesBruteForceAfterRandomInsertsAndRemoves() {
+        record Interval(LocalDateTime start, LocalDateTime end, UUID id) {}
+        Random random = new Random(42);
+        IntervalTree<Interval> tree = new IntervalTree<>();
+        List<Interval> expected = new ArrayList<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                Interval removed = expected.remove(random.nextInt(expected.size()));
+                assertThat(tree.remove(removed.start(), removed.id())).isTrue();
+            } else {
+                LocalDateTime start = h(random.nextInt(500));
+                Interval interval = new Interval(start, start.plusHours(1 + random.nextInt(48)), UUID.randomUUID());
+                tree.insert(interval.start(), interval.end(), interval.id(), interval);
+                expected.add(interval);
+            }
+
+            LocalDateTime from = h(random.nextInt(550));
+            LocalDateTime to = from.plusHours(1 + random.nextInt(24));
+            List<Interval> brute = expected.stream()
+                .filter(v -> v.start().isBefore(to) && v.end().isAfter(from))
+                .toList();
+            List<Interval> found = tree.overlapping(from, to);
+            assertThat(found).containsExactlyInAnyOrderElementsOf(brute);
+            assertThat(found).isSortedAccordingTo((a, b) -> a.start().compareTo(b.start()));
+            assertThat(tree.size()).isEqualTo(expected.size());
+        }
+    }
+}
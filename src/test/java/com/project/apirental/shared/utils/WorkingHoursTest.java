@@ -0,0 +1,90 @@
+package com.project.apirental.shared.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkingHoursTest {
+
+    // Lundi 6 janvier 2025
+    private static LocalDateTime monday(int plusDays, int hour, int minute) {
+        return LocalDateTime.of(2025, 1, 6, hour, minute).plusDays(plusDays);
+    }
+
+    @Test
+    void frenchDayRangesWithSeveralSegments() {
+        WorkingHours hours = WorkingHours.parse("Lun-Ven 8h30-18h; Sam 9h-13h", false);
+
+        assertThat(hours.isAlwaysOpen()).isFalse();
+        assertThat(hours.nextOpening(monday(0, 7, 0))).isEqualTo(monday(0, 8, 30));
+        assertThat(hours.nextOpening(monday(0, 10, 0))).isEqualTo(monday(0, 10, 0));
+        assertThat(hours.nextOpening(monday(4, 19, 0))).isEqualTo(monday(5, 9, 0));
+        // Dimanche fermé : réouverture le lundi suivant
+        assertThat(hours.nextOpening(monday(5, 14, 0))).isEqualTo(monday(7, 8, 30));
+        assertThat(hours.lastClosing(monday(5, 14, 0))).isEqualTo(monday(5, 13, 0));
+        assertThat(hours.lastClosing(monday(6, 12, 0))).isEqualTo(monday(5, 13, 0));
+    }
+
+    @Test
+    void fullFrenchDayNamesWithAccentsAndWordSeparator() {
+        WorkingHours hours = WorkingHours.parse("Lundi-Samedi : 8h à 18h", null);
+
+        assertThat(hours.nextOpening(monday(2, 7, 0))).isEqualTo(monday(2, 8, 0));
+        assertThat(hours.nextOpening(monday(6, 10, 0))).isEqualTo(monday(7, 8, 0));
+    }
+
+    @Test
+    void englishDayRanges() {
+        WorkingHours dash = WorkingHours.parse("Mon-Fri 09:00-17:00", false);
+        WorkingHours words = WorkingHours.parse("Monday to Friday 9h-17h", false);
+
+        for (WorkingHours hours : new WorkingHours[]{ dash, words }) {
+            assertThat(hours.nextOpening(monday(6, 10, 0))).isEqualTo(monday(7, 9, 0));
+            assertThat(hours.nextOpening(monday(3, 12, 0))).isEqualTo(monday(3, 12, 0));
+            assertThat(hours.lastClosing(monday(5, 10, 0))).isEqualTo(monday(4, 17, 0));
+        }
+    }
+
+    @Test
+    void rangeWrappingAroundTheWeek() {
+        WorkingHours hours = WorkingHours.parse("Samedi-Lundi 10h-16h", false);
+
+        assertThat(hours.nextOpening(monday(1, 9, 0))).isEqualTo(monday(5, 10, 0));
+        assertThat(hours.nextOpening(monday(6, 9, 0))).isEqualTo(monday(6, 10, 0));
+        assertThat(hours.nextOpening(monday(0, 12, 0))).isEqualTo(monday(0, 12, 0));
+    }
+
+    @Test
+    void segmentWithoutDaysReusesPreviousDays() {
+        WorkingHours hours = WorkingHours.parse("Lundi: 08:00-12:00, 14:00-18:00", false);
+
+        assertThat(hours.nextOpening(monday(0, 12, 30))).isEqualTo(monday(0, 14, 0));
+        assertThat(hours.lastClosing(monday(0, 13, 0))).isEqualTo(monday(0, 12, 0));
+        assertThat(hours.nextOpening(monday(1, 10, 0))).isEqualTo(monday(7, 8, 0));
+    }
+
+    @Test
+    void overnightWindowIsSplitAtMidnight() {
+        WorkingHours hours = WorkingHours.parse("Ven 22h-06h", false);
+
+        assertThat(hours.nextOpening(monday(4, 20, 0))).isEqualTo(monday(4, 22, 0));
+        assertThat(hours.nextOpening(monday(4, 23, 0))).isEqualTo(monday(4, 23, 0));
+        assertThat(hours.nextOpening(monday(5, 5, 0))).isEqualTo(monday(5, 5, 0));
+        assertThat(hours.nextOpening(monday(5, 7, 0))).isEqualTo(monday(11, 22, 0));
+        assertThat(hours.lastClosing(monday(5, 7, 0))).isEqualTo(monday(5, 6, 0));
+    }
+
+    @Test
+    void unreadableOrMissingHoursMeanAlwaysOpen() {
+        LocalDateTime t = monday(6, 3, 0);
+        for (String text : new String[]{ null, "", "   ", "Sur rendez-vous", "Lundi 25h-30h" }) {
+            WorkingHours hours = WorkingHours.parse(text, false);
+            assertThat(hours.isAlwaysOpen()).as(String.valueOf(text)).isTrue();
+            assertThat(hours.nextOpening(t)).isEqualTo(t);
+            assertThat(hours.lastClosing(t)).isEqualTo(t);
+        }
+        assertThat(WorkingHours.parse("Lun-Ven 8h-18h", true).isAlwaysOpen()).isTrue();
+    }
+}